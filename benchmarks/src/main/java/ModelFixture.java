@@ -0,0 +1,204 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+import benchmarks.ModelDriver;
+
+/**
+ * Implements the model benchmarks' driver in the default package, where it can
+ * reach the game classes.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public class ModelFixture implements ModelDriver {
+
+	/**
+	 * The number of moves in the cycle checked by isMoveValid.
+	 */
+	private static final int PROBES = 1024;
+
+	/**
+	 * The width and height of the board.
+	 */
+	private int size;
+
+	/**
+	 * The code of the starting tile of the prepared game.
+	 */
+	private int startCode;
+
+	/**
+	 * The prepared game.
+	 */
+	private Model model;
+
+	/**
+	 * The tiles placed to fill the prepared game, in order and already
+	 * rotated. Compact models do not keep them, so they can be replayed.
+	 */
+	private Tile[] placedTiles;
+
+	/**
+	 * The x-coordinates of the placed tiles.
+	 */
+	private int[] placedX;
+
+	/**
+	 * The y-coordinates of the placed tiles.
+	 */
+	private int[] placedY;
+
+	/**
+	 * The tiles checked by isMoveValid.
+	 */
+	private Tile[] probeTiles;
+
+	/**
+	 * The x-coordinates checked by isMoveValid.
+	 */
+	private int[] probeX;
+
+	/**
+	 * The y-coordinates checked by isMoveValid.
+	 */
+	private int[] probeY;
+
+	/**
+	 * The position in the cycle of isMoveValid probes.
+	 */
+	private int probe;
+
+	/**
+	 * Implements setUp from ModelDriver. Grows the game from the middle by
+	 * placing random tiles next to random placed tiles.
+	 */
+	@Override
+	public void setUp(int size, double fill, long seed) {
+		this.size = size;
+		Random random = new Random(seed);
+		startCode = randomCode(random);
+		model = new Model(size, true, TileCode.toTile(startCode));
+
+		int moves = (int) Math.round(fill * size * size) - 1;
+		moves = Math.max(0, Math.min(moves, size * size - 2));
+		placedTiles = new Tile[moves];
+		placedX = new int[moves];
+		placedY = new int[moves];
+
+		// Keep our own list of the empty spaces next to placed tiles.
+		boolean[] listed = new boolean[size * size];
+		ArrayList<Integer> open = new ArrayList<Integer>();
+		addNeighbors(size / 2, size / 2, open, listed);
+		for (int move = 0; move < moves; move++) {
+			while (true) {
+				int i = random.nextInt(open.size());
+				int cell = open.get(i);
+				int x = cell % size;
+				int y = cell / size;
+				Tile tile = TileCode.toTile(randomCode(random));
+				int rotation = 0;
+				while (rotation < 4 && !model.isMoveValid(x, y, tile)) {
+					tile.rotateRight();
+					rotation++;
+				}
+				if (rotation < 4) {
+					model.placeTile(x, y, tile);
+					placedTiles[move] = tile;
+					placedX[move] = x;
+					placedY[move] = y;
+					open.set(i, open.get(open.size() - 1));
+					open.remove(open.size() - 1);
+					addNeighbors(x, y, open, listed);
+					break;
+				}
+			}
+		}
+
+		probeTiles = new Tile[PROBES];
+		probeX = new int[PROBES];
+		probeY = new int[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			probeTiles[i] = TileCode.toTile(randomCode(random));
+			probeX[i] = random.nextInt(size);
+			probeY[i] = random.nextInt(size);
+		}
+	}
+
+	/**
+	 * Gets a random tile code with every side equally likely to be any type.
+	 * 
+	 * @param random
+	 *            The random number generator.
+	 * @return A random tile code.
+	 */
+	private static int randomCode(Random random) {
+		int code = 0;
+		for (int side = 0; side < 4; side++) {
+			code |= random.nextInt(3) << (2 * side);
+		}
+		return code;
+	}
+
+	/**
+	 * Adds the in-bounds, unlisted neighbors of a space to the open list.
+	 * 
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 * @param open
+	 *            The list of open spaces.
+	 * @param listed
+	 *            Which spaces have ever been listed.
+	 */
+	private void addNeighbors(int x, int y, ArrayList<Integer> open, boolean[] listed) {
+		listed[x + y * size] = true;
+		int[][] offsets = { { 0, -1 }, { 1, 0 }, { 0, 1 }, { -1, 0 } };
+		for (int[] offset : offsets) {
+			int nx = x + offset[0];
+			int ny = y + offset[1];
+			if (nx >= 0 && nx < size && ny >= 0 && ny < size && !listed[nx + ny * size]) {
+				listed[nx + ny * size] = true;
+				open.add(nx + ny * size);
+			}
+		}
+	}
+
+	/**
+	 * Implements newModel from ModelDriver.
+	 */
+	@Override
+	public Object newModel() {
+		return new Model(size, true, TileCode.toTile(startCode));
+	}
+
+	/**
+	 * Implements replayPlacements from ModelDriver.
+	 */
+	@Override
+	public int replayPlacements() {
+		Model replay = new Model(size, true, TileCode.toTile(startCode));
+		for (int i = 0; i < placedTiles.length; i++) {
+			replay.placeTile(placedX[i], placedY[i], placedTiles[i]);
+		}
+		return placedTiles.length;
+	}
+
+	/**
+	 * Implements isMoveValid from ModelDriver.
+	 */
+	@Override
+	public boolean isMoveValid() {
+		int i = probe++ & (PROBES - 1);
+		return model.isMoveValid(probeX[i], probeY[i], probeTiles[i]);
+	}
+
+	/**
+	 * Implements randomLegalTile from ModelDriver.
+	 */
+	@Override
+	public Object randomLegalTile() {
+		return model.randomLegalTile();
+	}
+
+}
@@ -0,0 +1,81 @@
+import java.util.Random;
+
+import benchmarks.TileImageDriver;
+
+/**
+ * Implements the tile image benchmarks' driver in the default package, where
+ * it can reach the game classes.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public class TileImageFixture implements TileImageDriver {
+
+	/**
+	 * The number of tiles in the cycle of rendered tiles.
+	 */
+	private static final int TILES = 64;
+
+	/**
+	 * The button that renders the tiles.
+	 */
+	private TileImageButton button;
+
+	/**
+	 * The cycle of tiles to render.
+	 */
+	private Tile[] tiles;
+
+	/**
+	 * The position in the cycle of tiles.
+	 */
+	private int next;
+
+	/**
+	 * Implements setUp from TileImageDriver. Each tile gets a random owner for
+	 * its roads and its cities, as on a board in play.
+	 */
+	@Override
+	public void setUp(int pixels, long seed) {
+		Random random = new Random(seed);
+		Owner[] owners = Owner.values();
+		tiles = new Tile[TILES];
+		for (int i = 0; i < TILES; i++) {
+			Tile tile = new Tile();
+			for (int side = 0; side < 4; side++) {
+				tile.getQuadrant(side).setType(QuadrantType.values()[random.nextInt(3)]);
+			}
+			Owner roadOwner = owners[random.nextInt(owners.length)];
+			Owner cityOwner = owners[random.nextInt(owners.length)];
+			for (int side = 0; side < 4; side++) {
+				Quadrant q = tile.getQuadrant(side);
+				if (q.getType() == QuadrantType.ROAD) {
+					q.setOwner(roadOwner);
+				} else if (q.getType() == QuadrantType.CITY) {
+					q.setOwner(cityOwner);
+				}
+			}
+			tiles[i] = tile;
+		}
+		button = new TileImageButton(0, 0, pixels, pixels, null);
+	}
+
+	/**
+	 * Implements render from TileImageDriver.
+	 */
+	@Override
+	public Object render() {
+		button.setTile(tiles[next++ & (TILES - 1)]);
+		return button.getIcon();
+	}
+
+	/**
+	 * Implements renderUncached from TileImageDriver.
+	 */
+	@Override
+	public Object renderUncached() {
+		TileImageButton.getImageCache().clear();
+		return render();
+	}
+
+}
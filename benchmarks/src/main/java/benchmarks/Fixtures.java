@@ -0,0 +1,39 @@
+package benchmarks;
+
+/**
+ * Loads the default-package fixtures that implement the driver interfaces.
+ * 
+ * @author Ben Visness
+ * 
+ */
+final class Fixtures {
+
+	/**
+	 * This class only has static methods.
+	 */
+	private Fixtures() {
+	}
+
+	/**
+	 * Creates the fixture for the game model.
+	 * 
+	 * @return A new ModelDriver.
+	 * @throws ReflectiveOperationException
+	 *             if the fixture is missing from the classpath.
+	 */
+	static ModelDriver model() throws ReflectiveOperationException {
+		return Class.forName("ModelFixture").asSubclass(ModelDriver.class).newInstance();
+	}
+
+	/**
+	 * Creates the fixture for the tile buttons.
+	 * 
+	 * @return A new TileImageDriver.
+	 * @throws ReflectiveOperationException
+	 *             if the fixture is missing from the classpath.
+	 */
+	static TileImageDriver tileImage() throws ReflectiveOperationException {
+		return Class.forName("TileImageFixture").asSubclass(TileImageDriver.class).newInstance();
+	}
+
+}
@@ -0,0 +1,133 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the hot paths of Model, on boards of several sizes filled to
+ * several levels. Run with "-prof gc" to see allocation rates.
+ * 
+ * @author Ben Visness
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+	/**
+	 * The width and height of the board.
+	 */
+	@Param({ "3", "15", "51", "101", "201" })
+	public int size;
+
+	/**
+	 * The fraction of the board that is filled before measuring.
+	 */
+	@Param({ "0.1", "0.5", "0.9" })
+	public double fill;
+
+	/**
+	 * The fixture that runs the game code.
+	 */
+	private ModelDriver driver;
+
+	/**
+	 * Counts the tiles placed by {@link ModelBenchmark#placeTile}, so JMH
+	 * reports the time per placement as well as per replayed game.
+	 * 
+	 * @author Ben Visness
+	 * 
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class PlacementCounter {
+
+		/**
+		 * The number of tiles placed in this iteration.
+		 */
+		public long placements;
+
+		/**
+		 * Resets the count at the start of each iteration.
+		 */
+		@Setup(Level.Iteration)
+		public void reset() {
+			placements = 0;
+		}
+
+	}
+
+	/**
+	 * Builds the game for this trial.
+	 * 
+	 * @throws ReflectiveOperationException
+	 *             if the fixture is missing.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws ReflectiveOperationException {
+		driver = Fixtures.model();
+		driver.setUp(size, fill, 42);
+	}
+
+	/**
+	 * Measures constructing an empty board, which placeTile includes.
+	 * 
+	 * @return The new model.
+	 */
+	@Benchmark
+	public Object newModel() {
+		return driver.newModel();
+	}
+
+	/**
+	 * Measures placing every tile of the prepared game on a new board.
+	 * 
+	 * @param counter
+	 *            Counts the placements.
+	 * @return The number of tiles placed.
+	 */
+	@Benchmark
+	public int placeTile(PlacementCounter counter) {
+		int placed = driver.replayPlacements();
+		counter.placements += placed;
+		return placed;
+	}
+
+	/**
+	 * Measures checking a move against the prepared game.
+	 * 
+	 * @return Whether the move is valid.
+	 */
+	@Benchmark
+	public boolean isMoveValid() {
+		return driver.isMoveValid();
+	}
+
+	/**
+	 * Measures drawing a random legal tile for the prepared game.
+	 * 
+	 * @return The tile.
+	 */
+	@Benchmark
+	public Object randomLegalTile() {
+		return driver.randomLegalTile();
+	}
+
+}
@@ -0,0 +1,60 @@
+package benchmarks;
+
+/**
+ * The operations of the game model that {@linkplain ModelBenchmark} measures.
+ * 
+ * The game classes live in the default package, and JMH cannot generate code
+ * for benchmarks in the default package, nor can code in a named package refer
+ * to them. So a fixture in the default package implements this interface, and
+ * the benchmarks call through it. The calls are monomorphic and get inlined.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public interface ModelDriver {
+
+	/**
+	 * Builds a game on a board of a given size, filled to a given fraction
+	 * with random legal moves, and prepares the inputs for the other methods.
+	 * 
+	 * @param size
+	 *            The width and height of the board.
+	 * @param fill
+	 *            The fraction of the board to fill, from 0 to 1. At least one
+	 *            space is always left empty.
+	 * @param seed
+	 *            The seed for the random tiles and moves.
+	 */
+	public void setUp(int size, double fill, long seed);
+
+	/**
+	 * Constructs a new, empty compact model of the prepared size.
+	 * 
+	 * @return The new model.
+	 */
+	public Object newModel();
+
+	/**
+	 * Constructs a new compact model and replays every move that was made to
+	 * fill the prepared game.
+	 * 
+	 * @return The number of tiles placed.
+	 */
+	public int replayPlacements();
+
+	/**
+	 * Checks whether the next of a fixed cycle of random tiles can be placed
+	 * at the next of a fixed cycle of random spaces on the prepared game.
+	 * 
+	 * @return Whether the move is valid.
+	 */
+	public boolean isMoveValid();
+
+	/**
+	 * Gets a random legal tile for the prepared game.
+	 * 
+	 * @return The tile.
+	 */
+	public Object randomLegalTile();
+
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for rendering tile images in TileImageButton. The images come
+ * from the tile atlas, which is loaded from the classpath.
+ * 
+ * @author Ben Visness
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TileImageBenchmark {
+
+	/**
+	 * The width and height of the tile image, in pixels. These are the sizes
+	 * of the board tiles on a 21 x 21 and 15 x 15 board and of the next tile
+	 * button.
+	 */
+	@Param({ "38", "53", "100" })
+	public int pixels;
+
+	/**
+	 * The fixture that runs the game code.
+	 */
+	private TileImageDriver driver;
+
+	/**
+	 * Builds the button and tiles for this trial.
+	 * 
+	 * @throws ReflectiveOperationException
+	 *             if the fixture is missing.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws ReflectiveOperationException {
+		driver = Fixtures.tileImage();
+		driver.setUp(pixels, 42);
+	}
+
+	/**
+	 * Measures rendering a tile's image. After warmup every tile of the cycle
+	 * is in the shared image cache, so this measures a cache hit.
+	 * 
+	 * @return The button's new icon.
+	 */
+	@Benchmark
+	public Object imageForTile() {
+		return driver.render();
+	}
+
+	/**
+	 * Measures rendering a tile's image from the atlas, with an empty cache.
+	 * 
+	 * @return The button's new icon.
+	 */
+	@Benchmark
+	public Object imageForTileUncached() {
+		return driver.renderUncached();
+	}
+
+}
@@ -0,0 +1,38 @@
+package benchmarks;
+
+/**
+ * The operations of the tile buttons that {@linkplain TileImageBenchmark}
+ * measures. See {@linkplain ModelDriver} for why this is an interface.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public interface TileImageDriver {
+
+	/**
+	 * Builds a tile button of a given size and a fixed cycle of random tiles
+	 * with random owners.
+	 * 
+	 * @param pixels
+	 *            The width and height of the button's image.
+	 * @param seed
+	 *            The seed for the random tiles.
+	 */
+	public void setUp(int pixels, long seed);
+
+	/**
+	 * Shows the next tile of the cycle on the button, which renders its image.
+	 * 
+	 * @return The button's new icon.
+	 */
+	public Object render();
+
+	/**
+	 * Shows the next tile of the cycle on the button after emptying the
+	 * shared image cache, so the image is always rendered from the atlas.
+	 * 
+	 * @return The button's new icon.
+	 */
+	public Object renderUncached();
+
+}
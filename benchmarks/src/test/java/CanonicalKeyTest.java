@@ -0,0 +1,121 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@linkplain Model#canonicalKey(int)} gives the same key for a
+ * position under all eight {@linkplain Symmetry symmetries} of the board.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public class CanonicalKeyTest {
+
+	/**
+	 * Plays random games in eight models at once, each the image of the first
+	 * under one symmetry, and compares their keys before every move.
+	 */
+	@Test
+	public void keyIsSameUnderEverySymmetry() {
+		Random random = new Random(7);
+		for (int game = 0; game < RandomGames.GAMES; game++) {
+			int size = RandomGames.boardSize(game);
+			boolean compact = game % 2 == 0;
+			TileType start = TileType.random(random);
+			Model[] models = new Model[Symmetry.COUNT];
+			for (int s = 0; s < Symmetry.COUNT; s++) {
+				int code = Symmetry.transformCode(start.getCode(), s);
+				models[s] = new Model(size, compact, TileCode.toTile(code));
+			}
+			RandomGames.play(models[0], random, new ImageChecker(models, size / 2));
+		}
+	}
+
+	/**
+	 * Checks the keys of the images of the first model before each move, then
+	 * makes the image of the move in each of them.
+	 */
+	private static class ImageChecker implements RandomGames.MoveListener {
+
+		/**
+		 * The models, each the image of the first under the symmetry at its
+		 * index. The first is the one being played in.
+		 */
+		private final Model[] models;
+
+		/**
+		 * The center of the board, which the symmetries turn around.
+		 */
+		private final int center;
+
+		/**
+		 * Constructs a checker for a set of images.
+		 * 
+		 * @param models
+		 *            The models, indexed by symmetry.
+		 * @param center
+		 *            The center of the board.
+		 */
+		public ImageChecker(Model[] models, int center) {
+			this.models = models;
+			this.center = center;
+		}
+
+		@Override
+		public void beforeMove(Model model, TileType tile, Placement placement) {
+			CanonicalKey key = model.canonicalKey(tile.getCode());
+			long board = model.canonicalKey(TileCode.EMPTY).getKey();
+
+			for (int s = 0; s < Symmetry.COUNT; s++) {
+				int code = Symmetry.transformCode(tile.getCode(), s);
+				CanonicalKey image = models[s].canonicalKey(code);
+				assertEquals(key.getKey(), image.getKey());
+				assertEquals(board, models[s].canonicalKey(TileCode.EMPTY).getKey());
+
+				int x = Symmetry.transformX(placement.getX(), placement.getY(), center, s);
+				int y = Symmetry.transformY(placement.getX(), placement.getY(), center, s);
+				int rotations = Symmetry.transformRotations(placement.getRotations(), s);
+				Placement moved = new Placement(x, y, rotations);
+				Placement back = image.fromCanonical(image.toCanonical(moved));
+				assertEquals(moved.toString(), back.toString());
+
+				TileType rotated = TileType.of(code).rotate(rotations);
+				assertTrue(models[s].isMoveValid(x, y, rotated));
+				// The game makes the move in the first model itself.
+				if (s != Symmetry.IDENTITY) {
+					models[s].placeTile(x, y, rotated);
+				}
+			}
+		}
+
+		@Override
+		public void afterMove(Model model, TileType tile, Placement placement) {
+			for (int s = 1; s < Symmetry.COUNT; s++) {
+				assertEquals(model.getRedScore(), models[s].getRedScore());
+				assertEquals(model.getBlueScore(), models[s].getBlueScore());
+			}
+		}
+	}
+
+	/**
+	 * Checks that the tile about to be placed changes the key, and that each
+	 * shape of tile gives a different one.
+	 */
+	@Test
+	public void pendingShapesHaveDistinctKeys() {
+		Model model = new Model(5, true, new Random(3));
+		Set<Long> keys = new HashSet<Long>();
+		keys.add(model.canonicalKey(TileCode.EMPTY).getKey());
+		for (int shape = 0; shape < TileCode.SHAPE_COUNT; shape++) {
+			int code = TileCode.shapeCode(shape);
+			assertTrue(keys.add(model.canonicalKey(code).getKey()));
+			assertEquals(model.canonicalKey(code).getKey(),
+					model.canonicalKey(TileCode.rotateRight(code)).getKey());
+		}
+	}
+}
@@ -0,0 +1,149 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@linkplain Model#legalPlacements(int, boolean, LegalPlacements)}
+ * finds exactly the placements that {@linkplain Model#isMoveValid} accepts.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public class LegalPlacementsTest {
+
+	/**
+	 * Compares the two through random games on bounded boards.
+	 */
+	@Test
+	public void matchesIsMoveValidOnBoundedBoard() {
+		for (int game = 0; game < RandomGames.GAMES; game++) {
+			int size = RandomGames.boardSize(game);
+			RandomGames.play(new Model(size, game % 2 == 0, new Random(game)), new Random(game),
+					new Checker(0, size - 1));
+		}
+	}
+
+	/**
+	 * Compares the two through random games on unbounded boards, checking
+	 * every space the tiles could have reached.
+	 */
+	@Test
+	public void matchesIsMoveValidOnUnboundedBoard() {
+		for (int game = 0; game < RandomGames.GAMES; game++) {
+			RandomGames.play(Model.unbounded(12, game % 2 == 0, new Random(game)), new Random(game),
+					new Checker(-13, 13));
+		}
+	}
+
+	/**
+	 * Compares the legal placements of every tile before each move.
+	 */
+	private static class Checker extends RandomGames.MoveAdapter {
+
+		/**
+		 * The smallest coordinate to check with isMoveValid.
+		 */
+		private final int min;
+
+		/**
+		 * The largest coordinate to check with isMoveValid.
+		 */
+		private final int max;
+
+		/**
+		 * The list reused by legalPlacements.
+		 */
+		private final LegalPlacements placements = new LegalPlacements();
+
+		/**
+		 * Constructs a checker for the spaces in a square.
+		 * 
+		 * @param min
+		 *            The smallest coordinate to check with isMoveValid.
+		 * @param max
+		 *            The largest coordinate to check with isMoveValid.
+		 */
+		public Checker(int min, int max) {
+			this.min = min;
+			this.max = max;
+		}
+
+		@Override
+		public void beforeMove(Model model, TileType next, Placement placement) {
+			for (int i = 0; i < TileType.COUNT; i++) {
+				TileType tile = TileType.get(i);
+				assertEquals(validPlacements(model, tile, false, min, max),
+						found(model, tile, false, placements));
+				assertEquals(validPlacements(model, tile, true, min, max),
+						found(model, tile, true, placements));
+			}
+		}
+	}
+
+	/**
+	 * Gets the placements legalPlacements finds for a tile, checking that
+	 * none of them is repeated.
+	 * 
+	 * @param model
+	 *            The model to search.
+	 * @param tile
+	 *            The tile to place.
+	 * @param distinct
+	 *            Whether to leave out rotations that repeat a smaller one.
+	 * @param placements
+	 *            The list to reuse.
+	 * @return The placements, as strings.
+	 */
+	private static Set<String> found(Model model, TileType tile, boolean distinct,
+			LegalPlacements placements) {
+		int count = model.legalPlacements(tile.getCode(), distinct, placements);
+		assertEquals(count, placements.size());
+		Set<String> result = new HashSet<String>();
+		for (int i = 0; i < placements.size(); i++) {
+			assertTrue(result.add(placements.getX(i) + "," + placements.getY(i) + ","
+					+ placements.getRotations(i)));
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the placements isMoveValid accepts for a tile by trying every
+	 * rotation in every space of a square.
+	 * 
+	 * @param model
+	 *            The model to search.
+	 * @param tile
+	 *            The tile to place.
+	 * @param distinct
+	 *            Whether to leave out rotations that repeat a smaller one.
+	 * @param min
+	 *            The smallest coordinate to try.
+	 * @param max
+	 *            The largest coordinate to try.
+	 * @return The placements, as strings.
+	 */
+	private static Set<String> validPlacements(Model model, TileType tile, boolean distinct,
+			int min, int max) {
+		Set<String> result = new HashSet<String>();
+		for (int y = min; y <= max; y++) {
+			for (int x = min; x <= max; x++) {
+				Set<TileType> tried = new HashSet<TileType>();
+				for (int rotations = 0; rotations < 4; rotations++) {
+					TileType rotated = tile.rotate(rotations);
+					if (distinct && !tried.add(rotated)) {
+						continue;
+					}
+					if (model.isMoveValid(x, y, rotated)) {
+						result.add(x + "," + y + "," + rotations);
+					}
+				}
+			}
+		}
+		return result;
+	}
+}
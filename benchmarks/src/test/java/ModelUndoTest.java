@@ -0,0 +1,135 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that undoing moves puts a model back exactly as it was.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public class ModelUndoTest {
+
+	/**
+	 * Plays random games on bounded boards, undoing every move once before
+	 * replaying it and now and then undoing several moves in a row.
+	 */
+	@Test
+	public void undoRestoresBoundedModel() {
+		for (int game = 0; game < RandomGames.GAMES; game++) {
+			int size = RandomGames.boardSize(game);
+			checkGame(new Model(size, false, new Random(game)), new Random(game));
+			checkGame(new Model(size, true, new Random(game)), new Random(game));
+		}
+	}
+
+	/**
+	 * Plays random games on an unbounded board, as for a bounded one.
+	 */
+	@Test
+	public void undoRestoresUnboundedModel() {
+		for (int game = 0; game < RandomGames.GAMES; game++) {
+			checkGame(Model.unbounded(30, false, new Random(game)), new Random(game));
+			checkGame(Model.unbounded(30, true, new Random(game)), new Random(game));
+		}
+	}
+
+	/**
+	 * Plays a game to the end, checking every undo against the position it
+	 * should go back to, then undoes the whole game.
+	 * 
+	 * @param model
+	 *            The model to play in.
+	 * @param random
+	 *            Chooses the moves and how often to undo.
+	 */
+	private static void checkGame(Model model, Random random) {
+		model.setUndoEnabled(true);
+		String start = describe(model);
+		RandomGames.play(model, random, new UndoChecker(random));
+		while (model.canUndo()) {
+			model.undo();
+		}
+		assertFalse(model.isGameOver());
+		assertEquals(start, describe(model));
+	}
+
+	/**
+	 * Undoes and replays each move, and now and then undoes several moves in
+	 * a row, checking each undo against the position before the move.
+	 */
+	private static class UndoChecker implements RandomGames.MoveListener {
+
+		/**
+		 * Chooses how often and how far to undo.
+		 */
+		private final Random random;
+
+		/**
+		 * The descriptions of the positions before each move still made, the
+		 * latest first.
+		 */
+		private final Deque<String> positions = new ArrayDeque<String>();
+
+		/**
+		 * Constructs a checker.
+		 * 
+		 * @param random
+		 *            Chooses how often and how far to undo.
+		 */
+		public UndoChecker(Random random) {
+			this.random = random;
+		}
+
+		@Override
+		public void beforeMove(Model model, TileType tile, Placement placement) {
+			positions.push(describe(model));
+		}
+
+		@Override
+		public void afterMove(Model model, TileType tile, Placement placement) {
+			String after = describe(model);
+			model.undo();
+			assertEquals(positions.peek(), describe(model));
+			placement.apply(model, tile);
+			assertEquals(after, describe(model));
+
+			if (random.nextInt(4) == 0) {
+				int count = 1 + random.nextInt(Math.min(3, positions.size()));
+				for (int i = 0; i < count; i++) {
+					model.undo();
+					assertEquals(positions.pop(), describe(model));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Describes everything about a position that an undo has to put back: the
+	 * board, the scores, whose turn it is, the position hash, and the number
+	 * of legal placements of every tile.
+	 * 
+	 * @param model
+	 *            The model to describe.
+	 * @return The description.
+	 */
+	private static String describe(Model model) {
+		StringBuilder result = new StringBuilder();
+		result.append(model.getRedScore()).append(' ');
+		result.append(model.getBlueScore()).append(' ');
+		result.append(model.getTurn()).append(' ');
+		result.append(model.getTilesPlaced()).append(' ');
+		result.append(Long.toHexString(model.positionHash())).append('\n');
+		result.append(model).append('\n');
+		LegalPlacements placements = new LegalPlacements();
+		for (int i = 0; i < TileType.COUNT; i++) {
+			result.append(model.legalPlacements(TileType.get(i).getCode(), false, placements)).append(' ');
+		}
+		return result.toString();
+	}
+}
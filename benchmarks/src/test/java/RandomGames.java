@@ -0,0 +1,96 @@
+import java.util.Random;
+
+/**
+ * Plays random games for the model tests, telling a listener about each move
+ * so the tests can check the model around it.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public class RandomGames {
+
+	/**
+	 * The number of games each test plays in each kind of model.
+	 */
+	public static final int GAMES = 20;
+
+	/**
+	 * Is told about each move of a random game.
+	 */
+	public interface MoveListener {
+
+		/**
+		 * Called before a move is made.
+		 * 
+		 * @param model
+		 *            The model being played in.
+		 * @param tile
+		 *            The tile about to be placed, before it is rotated.
+		 * @param placement
+		 *            Where and how the tile is about to be placed.
+		 */
+		public void beforeMove(Model model, TileType tile, Placement placement);
+
+		/**
+		 * Called after a move is made. The listener may undo moves, and the
+		 * game carries on from wherever it leaves the model.
+		 * 
+		 * @param model
+		 *            The model being played in.
+		 * @param tile
+		 *            The tile that was placed, before it was rotated.
+		 * @param placement
+		 *            Where and how the tile was placed.
+		 */
+		public void afterMove(Model model, TileType tile, Placement placement);
+	}
+
+	/**
+	 * A listener that does nothing, for listeners that only need one of the
+	 * two calls.
+	 */
+	public static class MoveAdapter implements MoveListener {
+
+		@Override
+		public void beforeMove(Model model, TileType tile, Placement placement) {
+		}
+
+		@Override
+		public void afterMove(Model model, TileType tile, Placement placement) {
+		}
+	}
+
+	/**
+	 * Gets the width and height of the bounded board for a game, so that the
+	 * games cycle through small, medium and large boards.
+	 * 
+	 * @param game
+	 *            The number of the game, from 0.
+	 * @return The width and height of the board, always odd.
+	 */
+	public static int boardSize(int game) {
+		return 3 + 2 * (game % 3);
+	}
+
+	/**
+	 * Plays a game to the end, choosing each tile and a legal placement of it
+	 * at random.
+	 * 
+	 * @param model
+	 *            The model to play in.
+	 * @param random
+	 *            Chooses the placements.
+	 * @param listener
+	 *            The listener to tell about each move.
+	 */
+	public static void play(Model model, Random random, MoveListener listener) {
+		while (!model.isGameOver()) {
+			TileType tile = model.randomLegalType();
+			LegalPlacements placements = model.legalPlacements(tile.getCode());
+			Placement placement = placements.get(random.nextInt(placements.size()));
+			listener.beforeMove(model, tile, placement);
+			placement.apply(model, tile);
+			listener.afterMove(model, tile, placement);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * This interface defines how the spaces of a game board are laid out. Each
+ * space that the game has touched is given a small, non-negative index, which
+ * the {@linkplain Model} uses to look the space up in its packed arrays.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public interface Board {
+
+	/**
+	 * Gets whether a given x and y are on the board.
+	 * 
+	 * @param x
+	 *            The x-coordinate to check.
+	 * @param y
+	 *            The y-coordinate to check.
+	 * @return Whether the given x and y are on the board.
+	 */
+	public boolean isInBounds(int x, int y);
+
+	/**
+	 * Gets the index of the space at a given x and y.
+	 * 
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 * @return The index of the space, or -1 if the space is out of bounds or
+	 *         has never been added.
+	 */
+	public int getSpace(int x, int y);
+
+	/**
+	 * Gets the index of the space at a given x and y, adding the space to the
+	 * board if it has never been added.
+	 * 
+	 * @param x
+	 *            The x-coordinate of the space. It must be in bounds.
+	 * @param y
+	 *            The y-coordinate of the space. It must be in bounds.
+	 * @return The index of the space.
+	 */
+	public int addSpace(int x, int y);
+
+	/**
+	 * Gets the x-coordinate of a space.
+	 * 
+	 * @param space
+	 *            The index of the space.
+	 * @return The x-coordinate of the space.
+	 */
+	public int getX(int space);
+
+	/**
+	 * Gets the y-coordinate of a space.
+	 * 
+	 * @param space
+	 *            The index of the space.
+	 * @return The y-coordinate of the space.
+	 */
+	public int getY(int space);
+
+	/**
+	 * Gets the number of space indexes in use. Every index returned by this
+	 * board is less than this number.
+	 * 
+	 * @return The number of space indexes in use.
+	 */
+	public int getSpaceCount();
+
+	/**
+	 * Makes a copy of this board that spaces can be added to without changing
+	 * this one.
+	 * 
+	 * @return A copy of this board.
+	 */
+	public Board copy();
+
+}
@@ -0,0 +1,379 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JComponent;
+
+/**
+ * Displays a whole game board as one component. The component doesn't read a
+ * {@linkplain Model}; it is given the tile in each space that changes with
+ * {@linkplain #setTile(int, int, Tile)}, so the model can be played on another
+ * thread. The tiles are drawn into a back buffer, and only the spaces that
+ * changed are redrawn and repainted. Clicking a space notifies the board's
+ * action listeners, which can find out which space was clicked with
+ * {@linkplain #getSelectedX()} and {@linkplain #getSelectedY()}.
+ *
+ * @author Ben Visness
+ *
+ */
+@SuppressWarnings("serial")
+public class BoardComponent extends JComponent {
+
+	/**
+	 * The color of the lines between spaces.
+	 */
+	private static final Color GRID_COLOR = Color.GRAY;
+
+	/**
+	 * The color drawn over highlighted spaces. It is translucent so the space
+	 * underneath still shows.
+	 */
+	private static final Color HIGHLIGHT_COLOR = new Color(255, 255, 0, 96);
+
+	/**
+	 * The color of the outline drawn around the hinted space.
+	 */
+	private static final Color HINT_COLOR = Color.GREEN;
+
+	/**
+	 * The tile shown in each space, or null for an empty space, indexed by x +
+	 * y * boardSize.
+	 */
+	private final Tile[] tiles;
+
+	/**
+	 * The number of spaces in one row or column of the board.
+	 */
+	private final int boardSize;
+
+	/**
+	 * The width and height of one space, in pixels.
+	 */
+	private final int tileSize;
+
+	/**
+	 * The image that the tiles are drawn into. The component is painted by
+	 * copying from this image.
+	 */
+	private final BufferedImage backBuffer;
+
+	/**
+	 * Whether each space needs to be redrawn, indexed by x + y * boardSize.
+	 */
+	private final boolean[] dirty;
+
+	/**
+	 * The spaces that need to be redrawn, indexed by x + y * boardSize.
+	 */
+	private final List<Integer> dirtySpaces = new ArrayList<Integer>();
+
+	/**
+	 * Whether each space is highlighted, indexed by x + y * boardSize.
+	 */
+	private final boolean[] highlighted;
+
+	/**
+	 * The spaces that are highlighted, indexed by x + y * boardSize.
+	 */
+	private final List<Integer> highlightedSpaces = new ArrayList<Integer>();
+
+	/**
+	 * The space outlined as a hint, as x + y * boardSize, or -1 if there is
+	 * no hint.
+	 */
+	private int hintSpace = -1;
+
+	/**
+	 * The listeners to notify when a space is clicked.
+	 */
+	private final List<ActionListener> actionListeners = new ArrayList<ActionListener>();
+
+	/**
+	 * The x-coordinate of the space that was clicked last.
+	 */
+	private int selectedX = -1;
+
+	/**
+	 * The y-coordinate of the space that was clicked last.
+	 */
+	private int selectedY = -1;
+
+	/**
+	 * Constructs a new BoardComponent with every space empty.
+	 *
+	 * @param boardSize
+	 *            The number of spaces in one row or column of the board.
+	 * @param width
+	 *            The width and height of the whole board, in pixels.
+	 */
+	public BoardComponent(int boardSize, int width) {
+		this.boardSize = boardSize;
+		this.tileSize = Math.max(width / boardSize, 1);
+		this.backBuffer = new BufferedImage(tileSize * boardSize, tileSize * boardSize, BufferedImage.TYPE_INT_RGB);
+		this.tiles = new Tile[boardSize * boardSize];
+		this.dirty = new boolean[boardSize * boardSize];
+		this.highlighted = new boolean[boardSize * boardSize];
+
+		setPreferredSize(new Dimension(width, width));
+		setOpaque(true);
+		setBackground(GRID_COLOR);
+
+		for (int space = 0; space < dirty.length; space++) {
+			markDirty(space);
+		}
+		update();
+
+		addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseReleased(MouseEvent e) {
+				if (contains(e.getPoint())) {
+					spaceClicked(e.getX() / tileSize, e.getY() / tileSize);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Sets the tile shown in a space. The space is redrawn by the next call to
+	 * update().
+	 *
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 * @param tile
+	 *            The tile to show, or null for an empty space. It must not be
+	 *            changed afterward.
+	 * @see BoardComponent#update()
+	 */
+	public void setTile(int x, int y, Tile tile) {
+		tiles[x + y * boardSize] = tile;
+		markDirty(x + y * boardSize);
+	}
+
+	/**
+	 * Highlights a space, such as one the next tile can be placed in. The
+	 * highlight is drawn over the tile, and only the space is repainted.
+	 *
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 */
+	public void highlight(int x, int y) {
+		int space = x + y * boardSize;
+		if (!highlighted[space]) {
+			highlighted[space] = true;
+			highlightedSpaces.add(space);
+			repaint(spaceBounds(x, y));
+		}
+	}
+
+	/**
+	 * Removes every highlight, repainting only the spaces that were
+	 * highlighted.
+	 */
+	public void clearHighlights() {
+		for (int i = 0; i < highlightedSpaces.size(); i++) {
+			int space = highlightedSpaces.get(i);
+			highlighted[space] = false;
+			repaint(spaceBounds(space % boardSize, space / boardSize));
+		}
+		highlightedSpaces.clear();
+	}
+
+	/**
+	 * Outlines a space as a hint, replacing the last one.
+	 *
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 */
+	public void setHint(int x, int y) {
+		clearHint();
+		hintSpace = x + y * boardSize;
+		repaint(spaceBounds(x, y));
+	}
+
+	/**
+	 * Removes the hint outline, if there is one.
+	 */
+	public void clearHint() {
+		if (hintSpace >= 0) {
+			repaint(spaceBounds(hintSpace % boardSize, hintSpace / boardSize));
+			hintSpace = -1;
+		}
+	}
+
+	/**
+	 * Gets the width and height of one space.
+	 *
+	 * @return The size of a space, in pixels.
+	 */
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	/**
+	 * Marks a space as needing to be redrawn by the next call to update().
+	 *
+	 * @param space
+	 *            The space, as x + y * boardSize.
+	 * @see BoardComponent#update()
+	 */
+	private void markDirty(int space) {
+		if (!dirty[space]) {
+			dirty[space] = true;
+			dirtySpaces.add(space);
+		}
+	}
+
+	/**
+	 * Redraws the spaces whose tiles have changed, and repaints only those
+	 * spaces.
+	 */
+	public void update() {
+		Graphics g = backBuffer.createGraphics();
+		try {
+			for (int i = 0; i < dirtySpaces.size(); i++) {
+				int space = dirtySpaces.get(i);
+				dirty[space] = false;
+				int x = space % boardSize;
+				int y = space / boardSize;
+				Rectangle bounds = spaceBounds(x, y);
+
+				try {
+					g.drawImage(TileImageButton.imageForTile(tiles[space], tileSize, tileSize), bounds.x,
+							bounds.y, null);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+				if (tileSize > 2) {
+					g.setColor(GRID_COLOR);
+					g.drawRect(bounds.x, bounds.y, bounds.width - 1, bounds.height - 1);
+				}
+
+				repaint(bounds);
+			}
+		} finally {
+			g.dispose();
+		}
+		dirtySpaces.clear();
+	}
+
+	/**
+	 * Gets the area of the component that a space covers.
+	 *
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 * @return The bounds of the space, in pixels.
+	 */
+	private Rectangle spaceBounds(int x, int y) {
+		return new Rectangle(x * tileSize, y * tileSize, tileSize, tileSize);
+	}
+
+	/**
+	 * Selects a clicked space and notifies the action listeners, if the
+	 * component is enabled and the space is on the board.
+	 *
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 */
+	private void spaceClicked(int x, int y) {
+		if (!isEnabled() || x < 0 || y < 0 || x >= boardSize || y >= boardSize) {
+			return;
+		}
+
+		selectedX = x;
+		selectedY = y;
+		ActionEvent event = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, x + "," + y);
+		for (ActionListener listener : new ArrayList<ActionListener>(actionListeners)) {
+			listener.actionPerformed(event);
+		}
+	}
+
+	/**
+	 * Adds a listener to notify when a space is clicked.
+	 *
+	 * @param listener
+	 *            The listener to add.
+	 */
+	public void addActionListener(ActionListener listener) {
+		actionListeners.add(listener);
+	}
+
+	/**
+	 * Removes a listener added by addActionListener.
+	 *
+	 * @param listener
+	 *            The listener to remove.
+	 */
+	public void removeActionListener(ActionListener listener) {
+		actionListeners.remove(listener);
+	}
+
+	/**
+	 * Gets the x-coordinate of the space that was clicked last.
+	 *
+	 * @return The x-coordinate on the game board, or -1 if no space has been
+	 *         clicked.
+	 */
+	public int getSelectedX() {
+		return selectedX;
+	}
+
+	/**
+	 * Gets the y-coordinate of the space that was clicked last.
+	 *
+	 * @return The y-coordinate on the game board, or -1 if no space has been
+	 *         clicked.
+	 */
+	public int getSelectedY() {
+		return selectedY;
+	}
+
+	/**
+	 * Paints the board by copying the back buffer, then draws the highlights
+	 * and the hint over it. Swing clips the copy to the area that needs to be
+	 * painted, and highlights outside that area are skipped.
+	 */
+	@Override
+	protected void paintComponent(Graphics g) {
+		g.setColor(getBackground());
+		g.fillRect(0, 0, getWidth(), getHeight());
+		g.drawImage(backBuffer, 0, 0, null);
+
+		Rectangle clip = g.getClipBounds();
+		g.setColor(HIGHLIGHT_COLOR);
+		for (int i = 0; i < highlightedSpaces.size(); i++) {
+			int space = highlightedSpaces.get(i);
+			Rectangle bounds = spaceBounds(space % boardSize, space / boardSize);
+			if (clip == null || clip.intersects(bounds)) {
+				g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+			}
+		}
+
+		if (hintSpace >= 0) {
+			Rectangle bounds = spaceBounds(hintSpace % boardSize, hintSpace / boardSize);
+			g.setColor(HINT_COLOR);
+			int thickness = Math.max(tileSize / 10, 1);
+			for (int i = 0; i < thickness && 2 * i < tileSize; i++) {
+				g.drawRect(bounds.x + i, bounds.y + i, bounds.width - 1 - 2 * i, bounds.height - 1 - 2 * i);
+			}
+		}
+	}
+
+}
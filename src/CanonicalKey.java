@@ -0,0 +1,145 @@
+/**
+ * The key of a position that is the same for all eight of its images under
+ * the symmetries of the board, along with the {@linkplain Symmetry} that turns
+ * the position into its canonical image. Tablebases, transposition tables and
+ * opening caches keyed this way share one entry between all the positions that
+ * are really the same, and can store moves in the canonical image and map them
+ * back with {@link #fromCanonical(Placement)}.
+ *
+ * @author Ben Visness
+ *
+ * @see Model#canonicalKey(int)
+ */
+public class CanonicalKey {
+
+	/**
+	 * The key of the position.
+	 */
+	private final long key;
+
+	/**
+	 * The symmetry that turns the position into its canonical image.
+	 */
+	private final int symmetry;
+
+	/**
+	 * The x- and y-coordinate of the space the board turns about.
+	 */
+	private final int center;
+
+	/**
+	 * Constructs a new CanonicalKey.
+	 *
+	 * @param key
+	 *            The key of the position.
+	 * @param symmetry
+	 *            The symmetry that turns the position into its canonical
+	 *            image, from 0 to 7.
+	 * @param center
+	 *            The x- and y-coordinate of the space the board turns about.
+	 */
+	public CanonicalKey(long key, int symmetry, int center) {
+		if (symmetry < 0 || symmetry >= Symmetry.COUNT) {
+			throw new IllegalArgumentException(symmetry + ": symmetry must be from 0 to 7.");
+		}
+		this.key = key;
+		this.symmetry = symmetry;
+		this.center = center;
+	}
+
+	/**
+	 * Gets the key of the position.
+	 *
+	 * @return The key.
+	 */
+	public long getKey() {
+		return key;
+	}
+
+	/**
+	 * Gets the symmetry that turns the position into its canonical image.
+	 *
+	 * @return The symmetry, from 0 to 7.
+	 */
+	public int getSymmetry() {
+		return symmetry;
+	}
+
+	/**
+	 * Gets the x- and y-coordinate of the space the board turns about.
+	 *
+	 * @return The coordinate of the center space.
+	 */
+	public int getCenter() {
+		return center;
+	}
+
+	/**
+	 * Maps a placement of the pending tile in the position to the same
+	 * placement in the canonical image. In the canonical image the pending
+	 * tile is transformed too, so its rotations count from
+	 * Symmetry.transformCode(tileCode, getSymmetry()).
+	 *
+	 * @param placement
+	 *            The placement in the position.
+	 * @return The placement in the canonical image.
+	 */
+	public Placement toCanonical(Placement placement) {
+		return transform(placement, symmetry);
+	}
+
+	/**
+	 * Maps a placement of the pending tile in the canonical image back to the
+	 * same placement in the position.
+	 *
+	 * @param placement
+	 *            The placement in the canonical image.
+	 * @return The placement in the position.
+	 */
+	public Placement fromCanonical(Placement placement) {
+		return transform(placement, Symmetry.inverse(symmetry));
+	}
+
+	/**
+	 * Applies a symmetry to a placement.
+	 *
+	 * @param placement
+	 *            The placement to transform.
+	 * @param s
+	 *            The symmetry.
+	 * @return The transformed placement.
+	 */
+	private Placement transform(Placement placement, int s) {
+		int x = placement.getX();
+		int y = placement.getY();
+		return new Placement(Symmetry.transformX(x, y, center, s), Symmetry.transformY(x, y, center, s),
+				Symmetry.transformRotations(placement.getRotations(), s));
+	}
+
+	/**
+	 * Checks whether another object is a CanonicalKey with the same key. The
+	 * symmetry isn't compared, since equivalent positions have different
+	 * symmetries.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof CanonicalKey && ((CanonicalKey) other).key == key;
+	}
+
+	/**
+	 * Implements hashCode from Object.
+	 */
+	@Override
+	public int hashCode() {
+		return (int) (key ^ (key >>> 32));
+	}
+
+	/**
+	 * Implements toString from Object.
+	 */
+	@Override
+	public String toString() {
+		return String.format("%016x (symmetry %d)", key, symmetry);
+	}
+
+}
@@ -0,0 +1,259 @@
+import java.util.Arrays;
+
+/**
+ * An unbounded {@linkplain Board} that only allocates memory where the game
+ * has touched it. Space indexes are handed out in the order spaces are added,
+ * and are stored in square chunks kept in a hash table keyed by chunk
+ * coordinates, so memory grows with the number of tiles rather than with the
+ * area they cover.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public class ChunkedBoard implements Board {
+
+	/**
+	 * The log base 2 of the width of a chunk.
+	 */
+	private static final int CHUNK_BITS = 4;
+
+	/**
+	 * The width and height of a chunk, in spaces.
+	 */
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+	/**
+	 * The keys of the chunk hash table. A slot is in use if its chunk is not
+	 * null.
+	 */
+	private long[] keys;
+
+	/**
+	 * The chunks of the hash table. Each chunk holds the index of each of its
+	 * spaces, or -1 for spaces that have not been added.
+	 */
+	private int[][] chunks;
+
+	/**
+	 * The number of chunks in the hash table.
+	 */
+	private int chunkCount;
+
+	/**
+	 * The key of the most recently used chunk. Neighboring spaces are usually
+	 * in the same chunk, so this saves most hash table lookups.
+	 */
+	private long lastKey;
+
+	/**
+	 * The most recently used chunk, or null if there is none.
+	 */
+	private int[] lastChunk;
+
+	/**
+	 * The x-coordinate of each space, by index.
+	 */
+	private int[] xs;
+
+	/**
+	 * The y-coordinate of each space, by index.
+	 */
+	private int[] ys;
+
+	/**
+	 * The number of spaces that have been added.
+	 */
+	private int spaceCount;
+
+	/**
+	 * Constructs a new, empty ChunkedBoard.
+	 */
+	public ChunkedBoard() {
+		keys = new long[16];
+		chunks = new int[16][];
+		xs = new int[64];
+		ys = new int[64];
+	}
+
+	/**
+	 * Implements copy from Board. Every chunk is copied.
+	 */
+	@Override
+	public Board copy() {
+		ChunkedBoard copy = new ChunkedBoard();
+		copy.keys = keys.clone();
+		copy.chunks = new int[chunks.length][];
+		for (int i = 0; i < chunks.length; i++) {
+			if (chunks[i] != null) {
+				copy.chunks[i] = chunks[i].clone();
+			}
+		}
+		copy.chunkCount = chunkCount;
+		copy.xs = xs.clone();
+		copy.ys = ys.clone();
+		copy.spaceCount = spaceCount;
+		return copy;
+	}
+
+	/**
+	 * Implements isInBounds from Board. Every space is in bounds.
+	 */
+	@Override
+	public boolean isInBounds(int x, int y) {
+		return true;
+	}
+
+	/**
+	 * Implements getSpace from Board.
+	 */
+	@Override
+	public int getSpace(int x, int y) {
+		int[] chunk = getChunk(x >> CHUNK_BITS, y >> CHUNK_BITS, false);
+		return chunk == null ? -1 : chunk[offset(x, y)];
+	}
+
+	/**
+	 * Implements addSpace from Board. Allocates the chunk containing the space
+	 * if necessary.
+	 */
+	@Override
+	public int addSpace(int x, int y) {
+		int[] chunk = getChunk(x >> CHUNK_BITS, y >> CHUNK_BITS, true);
+		int offset = offset(x, y);
+		if (chunk[offset] < 0) {
+			if (spaceCount == xs.length) {
+				xs = Arrays.copyOf(xs, 2 * xs.length);
+				ys = Arrays.copyOf(ys, 2 * ys.length);
+			}
+			xs[spaceCount] = x;
+			ys[spaceCount] = y;
+			chunk[offset] = spaceCount++;
+		}
+		return chunk[offset];
+	}
+
+	/**
+	 * Implements getX from Board.
+	 */
+	@Override
+	public int getX(int space) {
+		return xs[space];
+	}
+
+	/**
+	 * Implements getY from Board.
+	 */
+	@Override
+	public int getY(int space) {
+		return ys[space];
+	}
+
+	/**
+	 * Implements getSpaceCount from Board. This is the number of spaces that
+	 * have been added.
+	 */
+	@Override
+	public int getSpaceCount() {
+		return spaceCount;
+	}
+
+	/**
+	 * Gets the number of chunks that have been allocated.
+	 * 
+	 * @return The number of chunks.
+	 */
+	public int getChunkCount() {
+		return chunkCount;
+	}
+
+	/**
+	 * Gets the position of a space within its chunk.
+	 * 
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 * @return The position of the space in its chunk's array.
+	 */
+	private static int offset(int x, int y) {
+		return (x & (CHUNK_SIZE - 1)) | ((y & (CHUNK_SIZE - 1)) << CHUNK_BITS);
+	}
+
+	/**
+	 * Gets the hash table slot to start probing from for a given key.
+	 * 
+	 * @param key
+	 *            The chunk key.
+	 * @param capacity
+	 *            The number of slots in the table, a power of two.
+	 * @return The first slot to probe.
+	 */
+	private static int slot(long key, int capacity) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & (capacity - 1);
+	}
+
+	/**
+	 * Finds the chunk with the given chunk coordinates.
+	 * 
+	 * @param chunkX
+	 *            The x-coordinate of the chunk.
+	 * @param chunkY
+	 *            The y-coordinate of the chunk.
+	 * @param create
+	 *            Whether to allocate the chunk if it does not exist.
+	 * @return The chunk, or null if it does not exist and create is false.
+	 */
+	private int[] getChunk(int chunkX, int chunkY, boolean create) {
+		long key = ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+		if (lastChunk != null && key == lastKey) {
+			return lastChunk;
+		}
+
+		int i = slot(key, keys.length);
+		while (chunks[i] != null) {
+			if (keys[i] == key) {
+				lastKey = key;
+				lastChunk = chunks[i];
+				return lastChunk;
+			}
+			i = (i + 1) & (keys.length - 1);
+		}
+		if (!create) {
+			return null;
+		}
+
+		int[] chunk = new int[CHUNK_SIZE * CHUNK_SIZE];
+		Arrays.fill(chunk, -1);
+		keys[i] = key;
+		chunks[i] = chunk;
+		chunkCount++;
+		if (2 * chunkCount > keys.length) {
+			rehash();
+		}
+		lastKey = key;
+		lastChunk = chunk;
+		return chunk;
+	}
+
+	/**
+	 * Doubles the size of the chunk hash table.
+	 */
+	private void rehash() {
+		long[] oldKeys = keys;
+		int[][] oldChunks = chunks;
+		keys = new long[2 * oldKeys.length];
+		chunks = new int[2 * oldChunks.length][];
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldChunks[j] != null) {
+				int i = slot(oldKeys[j], keys.length);
+				while (chunks[i] != null) {
+					i = (i + 1) & (keys.length - 1);
+				}
+				keys[i] = oldKeys[j];
+				chunks[i] = oldChunks[j];
+			}
+		}
+	}
+
+}
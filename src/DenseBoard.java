@@ -0,0 +1,95 @@
+/**
+ * A square {@linkplain Board} of fixed size, where every space exists up
+ * front. The index of a space is its x-coordinate plus its y-coordinate times
+ * the size of the board.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public class DenseBoard implements Board {
+
+	/**
+	 * The width and height of the board.
+	 */
+	private final int size;
+
+	/**
+	 * Constructs a new DenseBoard.
+	 * 
+	 * @param size
+	 *            The width and height of the board.
+	 */
+	public DenseBoard(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Gets the width and height of the board.
+	 * 
+	 * @return The width and height of the board.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Implements isInBounds from Board. Only the spaces from 0 to size - 1 in
+	 * each direction are in bounds.
+	 */
+	@Override
+	public boolean isInBounds(int x, int y) {
+		return (x >= 0 && x < size && y >= 0 && y < size);
+	}
+
+	/**
+	 * Implements getSpace from Board.
+	 */
+	@Override
+	public int getSpace(int x, int y) {
+		return isInBounds(x, y) ? x + y * size : -1;
+	}
+
+	/**
+	 * Implements addSpace from Board. Every space already exists, so nothing
+	 * is added.
+	 */
+	@Override
+	public int addSpace(int x, int y) {
+		return x + y * size;
+	}
+
+	/**
+	 * Implements getX from Board.
+	 */
+	@Override
+	public int getX(int space) {
+		return space % size;
+	}
+
+	/**
+	 * Implements getY from Board.
+	 */
+	@Override
+	public int getY(int space) {
+		return space / size;
+	}
+
+	/**
+	 * Implements getSpaceCount from Board. This is always the area of the
+	 * board.
+	 */
+	@Override
+	public int getSpaceCount() {
+		return size * size;
+	}
+
+	/**
+	 * Implements copy from Board. Adding a space never changes a DenseBoard,
+	 * so it is its own copy.
+	 */
+	@Override
+	public Board copy() {
+		return this;
+	}
+
+}
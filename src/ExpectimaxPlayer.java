@@ -0,0 +1,866 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A computer player for small boards that searches the game tree with
+ * depth-limited expectimax. The player to move maximizes their final score
+ * minus their opponent's. The tile drawn before each move is a chance node,
+ * weighted the same as {@linkplain Model#randomLegalTile()} under the game's
+ * tile distribution. Tiles that are rotations of each other lead to the same
+ * choices, so each shape of tile is searched once and weighted by how many
+ * codes it covers.
+ * <p>
+ * Each tile covers at most one completed road and one completed city, so the
+ * points still to be scored are at most twice the number of tiles minus the
+ * points already scored. That bounds every value, which lets chance nodes be
+ * cut off with Ballard's Star1 and Star2 pruning as well as ordinary
+ * alpha-beta pruning at the choice nodes.
+ * <p>
+ * The search deepens one placement at a time until the time budget runs out,
+ * or until it reaches the end of the game, in which case the result is exact.
+ * Helper threads run the same search in a different move order and share
+ * results through a lock-free {@linkplain TranspositionTable}, so the main
+ * search finds more of its positions already searched.
+ *
+ * @author Ben Visness
+ *
+ */
+public class ExpectimaxPlayer implements Player {
+
+	/**
+	 * The log base 2 of the number of entries in the transposition table.
+	 */
+	private static final int TABLE_BITS = 20;
+
+	/**
+	 * How many positions are searched between checks of the clock. A power of
+	 * two.
+	 */
+	private static final int CLOCK_INTERVAL = 64;
+
+	/**
+	 * How much each tile in a player's unfinished features is worth, compared
+	 * to a point already scored, when the search stops before the end of the
+	 * game. Those tiles haven't been scored, so a weight of at most 1 keeps
+	 * every value inside the bounds the pruning relies on.
+	 */
+	private static final double UNFINISHED_WEIGHT = 1.0;
+
+	/**
+	 * A random Zobrist key for each tile code, mixed into the position hash
+	 * for the choice of where to place that tile.
+	 */
+	private static final long[] CODE_KEYS = new long[256];
+
+	static {
+		long seed = 0x243F6A8885A308D3L;
+		for (int i = 0; i < CODE_KEYS.length; i++) {
+			long z = (seed += 0x9E3779B97F4A7C15L);
+			z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+			z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+			CODE_KEYS[i] = z ^ (z >>> 31);
+		}
+	}
+
+	/**
+	 * The width and height of the boards this player plays on.
+	 */
+	private final int boardSize;
+
+	/**
+	 * How long to search for each move, in nanoseconds.
+	 */
+	private final long moveNanos;
+
+	/**
+	 * The number of threads that search each move.
+	 */
+	private final int threads;
+
+	/**
+	 * The threads that help the calling thread search, or null if the calling
+	 * thread searches alone.
+	 */
+	private final ExecutorService pool;
+
+	/**
+	 * The search results shared by every search of this player.
+	 */
+	private final TranspositionTable table = new TranspositionTable(TABLE_BITS);
+
+	/**
+	 * The number of positions searched so far, by all threads.
+	 */
+	private final AtomicLong nodes = new AtomicLong();
+
+	/**
+	 * The depth of the last completed search of the most recent move.
+	 */
+	private volatile int lastDepth;
+
+	/**
+	 * Whether the most recent move was searched to the end of the game.
+	 */
+	private volatile boolean lastSolved;
+
+	/**
+	 * The value of the most recent move for the player who made it.
+	 */
+	private volatile double lastValue;
+
+	/**
+	 * Constructs a new ExpectimaxPlayer.
+	 *
+	 * @param boardSize
+	 *            The width and height of the boards this player plays on.
+	 * @param moveMillis
+	 *            How long to search for each move, in milliseconds.
+	 * @param threads
+	 *            The number of threads that search each move, including the
+	 *            thread that asks for the move.
+	 */
+	public ExpectimaxPlayer(int boardSize, long moveMillis, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException(threads + ": a search needs at least one thread.");
+		}
+		this.boardSize = boardSize;
+		this.moveNanos = moveMillis * 1000000L;
+		this.threads = threads;
+		if (threads > 1) {
+			pool = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					// Don't keep the program running just for an idle player.
+					Thread thread = new Thread(r, "ExpectimaxPlayer search");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		} else {
+			pool = null;
+		}
+	}
+
+	/**
+	 * Implements choosePlacement from Player. Searches deeper and deeper until
+	 * the time budget runs out or the game is solved, and chooses the best
+	 * placement of the deepest search that finished. The first search always
+	 * finishes, however long it takes.
+	 */
+	@Override
+	public Placement choosePlacement(Model model, TileType tile) {
+		long deadline = System.nanoTime() + moveNanos;
+		int code = tile.getCode();
+		int rep = TileCode.shapeCode(TileCode.shape(code));
+		int turns = 0;
+		for (int rotated = code; rotated != rep; rotated = TileCode.rotateRight(rotated)) {
+			turns++;
+		}
+
+		AtomicBoolean stop = new AtomicBoolean();
+		List<Future<Search>> helpers = new ArrayList<Future<Search>>();
+		for (int i = 1; i < threads; i++) {
+			helpers.add(pool.submit(new Search(model.compactCopy(), rep, deadline, stop, i)));
+		}
+		Search main = new Search(model.compactCopy(), rep, deadline, stop, 0).call();
+		stop.set(true);
+		long searched = main.nodes;
+		try {
+			for (Future<Search> helper : helpers) {
+				searched += helper.get().nodes;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A search thread failed", e.getCause());
+		}
+
+		nodes.addAndGet(searched);
+		lastDepth = main.completedDepth;
+		lastSolved = main.solved;
+		lastValue = main.bestValue;
+		int move = main.bestMove;
+		return new Placement(moveX(move), moveY(move), (turns + moveRotations(move)) & 3);
+	}
+
+	/**
+	 * Gets the number of positions searched so far, by all threads.
+	 *
+	 * @return The number of positions searched.
+	 */
+	public long getNodes() {
+		return nodes.get();
+	}
+
+	/**
+	 * Gets how many placements ahead the most recent move was searched.
+	 *
+	 * @return The depth of the deepest search that finished.
+	 */
+	public int getLastDepth() {
+		return lastDepth;
+	}
+
+	/**
+	 * Gets whether the most recent move was searched to the end of the game,
+	 * so that its value is exact.
+	 *
+	 * @return Whether the most recent move was solved.
+	 */
+	public boolean isLastSolved() {
+		return lastSolved;
+	}
+
+	/**
+	 * Gets the value of the most recent move for the player who made it: the
+	 * expected difference between their final score and their opponent's,
+	 * as far as the search could see.
+	 *
+	 * @return The value of the most recent move.
+	 */
+	public double getLastValue() {
+		return lastValue;
+	}
+
+	/**
+	 * Packs a placement into an int.
+	 *
+	 * @param x
+	 *            The x-coordinate of the placement.
+	 * @param y
+	 *            The y-coordinate of the placement.
+	 * @param rotations
+	 *            The number of clockwise rotations, from 0 to 3.
+	 * @return The packed placement.
+	 */
+	private int move(int x, int y, int rotations) {
+		return ((y * boardSize + x) << 2) | rotations;
+	}
+
+	/**
+	 * Gets the x-coordinate of a packed placement.
+	 *
+	 * @param move
+	 *            The packed placement.
+	 * @return The x-coordinate.
+	 */
+	private int moveX(int move) {
+		return (move >>> 2) % boardSize;
+	}
+
+	/**
+	 * Gets the y-coordinate of a packed placement.
+	 *
+	 * @param move
+	 *            The packed placement.
+	 * @return The y-coordinate.
+	 */
+	private int moveY(int move) {
+		return (move >>> 2) / boardSize;
+	}
+
+	/**
+	 * Gets the number of clockwise rotations of a packed placement.
+	 *
+	 * @param move
+	 *            The packed placement.
+	 * @return The number of rotations, from 0 to 3.
+	 */
+	private static int moveRotations(int move) {
+		return move & 3;
+	}
+
+	/**
+	 * One thread's iterative deepening search, in its own copy of the game.
+	 *
+	 * @author Ben Visness
+	 *
+	 */
+	private class Search implements Callable<Search> {
+
+		/**
+		 * The game being searched. Every move is undone after it is searched.
+		 */
+		private final Model model;
+
+		/**
+		 * The smallest code of the shape of the tile to place.
+		 */
+		private final int rootCode;
+
+		/**
+		 * When to stop searching, in System.nanoTime() units.
+		 */
+		private final long deadline;
+
+		/**
+		 * Set when every thread should stop searching this move.
+		 */
+		private final AtomicBoolean stop;
+
+		/**
+		 * The number of this thread, 0 for the main search. Helpers search
+		 * moves in a different order from the main search.
+		 */
+		private final int helper;
+
+		/**
+		 * The number of tiles that can still be placed.
+		 */
+		private final int remaining;
+
+		/**
+		 * Scratch entry for reading the transposition table.
+		 */
+		private final TranspositionTable.Entry entry = new TranspositionTable.Entry();
+
+		/**
+		 * The legal placements at each ply.
+		 */
+		private final int[][] moves;
+
+		/**
+		 * Scratch list for finding legal placements.
+		 */
+		private final LegalPlacements placements = new LegalPlacements();
+
+		/**
+		 * The legal shapes of tile at each chance ply.
+		 */
+		private final int[][] classes;
+
+		/**
+		 * The lower bounds found by probing each tile at each chance ply.
+		 */
+		private final double[][] lowers;
+
+		/**
+		 * Whether the search may stop before it finishes. The first depth
+		 * must always finish, so there is a move to make.
+		 */
+		private boolean mayAbort;
+
+		/**
+		 * Whether the search stopped before it finished.
+		 */
+		private boolean aborted;
+
+		/**
+		 * The number of positions searched.
+		 */
+		private long nodes;
+
+		/**
+		 * The best placement found by the current depth so far.
+		 */
+		private int candidate = -1;
+
+		/**
+		 * The best placement of the deepest search that finished.
+		 */
+		private int bestMove = -1;
+
+		/**
+		 * The value of bestMove.
+		 */
+		private double bestValue;
+
+		/**
+		 * The depth of the deepest search that finished.
+		 */
+		private int completedDepth;
+
+		/**
+		 * Whether the search reached the end of the game.
+		 */
+		private boolean solved;
+
+		/**
+		 * Constructs a new Search.
+		 *
+		 * @param model
+		 *            A compact copy of the game to search. The search plays in
+		 *            it.
+		 * @param rootCode
+		 *            The smallest code of the shape of the tile to place.
+		 * @param deadline
+		 *            When to stop searching, in System.nanoTime() units.
+		 * @param stop
+		 *            Set when every thread should stop.
+		 * @param helper
+		 *            The number of this thread, 0 for the main search.
+		 */
+		private Search(Model model, int rootCode, long deadline, AtomicBoolean stop, int helper) {
+			this.model = model;
+			this.rootCode = rootCode;
+			this.deadline = deadline;
+			this.stop = stop;
+			this.helper = helper;
+			remaining = boardSize * boardSize - model.getTilesPlaced();
+			moves = new int[remaining + 1][];
+			classes = new int[remaining + 1][TileCode.SHAPE_COUNT];
+			lowers = new double[remaining + 1][TileCode.SHAPE_COUNT];
+			model.setUndoEnabled(true);
+		}
+
+		/**
+		 * Implements call from Callable. Searches one placement deeper at a
+		 * time until it is stopped or reaches the end of the game.
+		 */
+		@Override
+		public Search call() {
+			int[] rootMoves = Arrays.copyOf(moveList(0), legalMoves(rootCode, 0));
+			for (int depth = 1; depth <= remaining; depth++) {
+				mayAbort = helper > 0 || depth > 1;
+				double value = root(rootMoves, depth);
+				if (aborted) {
+					break;
+				}
+				bestMove = candidate;
+				bestValue = value;
+				completedDepth = depth;
+				solved = depth == remaining;
+				if (stop.get()) {
+					break;
+				}
+			}
+			return this;
+		}
+
+		/**
+		 * Searches every placement of the tile to place, best first.
+		 *
+		 * @param rootMoves
+		 *            The legal placements of the tile. The best one is moved to
+		 *            the front.
+		 * @param depth
+		 *            The number of placements to search ahead.
+		 * @return The value of the best placement.
+		 */
+		private double root(int[] rootMoves, int depth) {
+			long key = model.positionHash() ^ CODE_KEYS[rootCode];
+			if (bestMove >= 0) {
+				moveToFront(rootMoves, rootMoves.length, bestMove);
+			}
+			if (helper > 0) {
+				rotateTail(rootMoves, rootMoves.length, helper);
+			}
+
+			double alpha = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < rootMoves.length; i++) {
+				place(rootCode, rootMoves[i]);
+				double value = -chance(depth - 1, 1, Double.NEGATIVE_INFINITY, -alpha);
+				model.undo();
+				if (aborted) {
+					return 0;
+				}
+				if (value > alpha) {
+					alpha = value;
+					candidate = rootMoves[i];
+				}
+			}
+			table.store(key, alpha, depth, TranspositionTable.EXACT, candidate);
+			return alpha;
+		}
+
+		/**
+		 * Searches the placements of a known tile.
+		 *
+		 * @param code
+		 *            The smallest code of the shape of the tile to place.
+		 * @param depth
+		 *            The number of placements to search ahead, at least 1.
+		 * @param ply
+		 *            The number of placements from the root.
+		 * @param alpha
+		 *            The value below which the exact value doesn't matter.
+		 * @param beta
+		 *            The value above which the exact value doesn't matter.
+		 * @return The value of the best placement for the player to move, or a
+		 *         bound on it if it is outside the window.
+		 */
+		private double choice(int code, int depth, int ply, double alpha, double beta) {
+			if (countNode()) {
+				return 0;
+			}
+			long key = model.positionHash() ^ CODE_KEYS[code];
+			int hashMove = -1;
+			if (table.probe(key, entry)) {
+				hashMove = entry.getMove();
+				if (entry.getDepth() >= depth) {
+					double value = entry.getValue();
+					switch (entry.getBound()) {
+					case TranspositionTable.EXACT:
+						return value;
+					case TranspositionTable.LOWER:
+						alpha = Math.max(alpha, value);
+						break;
+					default:
+						beta = Math.min(beta, value);
+						break;
+					}
+					if (alpha >= beta) {
+						return value;
+					}
+				}
+			}
+
+			int count = legalMoves(code, ply);
+			int[] list = moves[ply];
+			if (hashMove >= 0) {
+				moveToFront(list, count, hashMove);
+			}
+			if (helper > 0) {
+				rotateTail(list, count, helper + ply);
+			}
+
+			double originalAlpha = alpha;
+			double best = Double.NEGATIVE_INFINITY;
+			int bestIndex = 0;
+			for (int i = 0; i < count; i++) {
+				place(code, list[i]);
+				double value = -chance(depth - 1, ply + 1, -beta, -alpha);
+				model.undo();
+				if (aborted) {
+					return 0;
+				}
+				if (value > best) {
+					best = value;
+					bestIndex = i;
+				}
+				alpha = Math.max(alpha, value);
+				if (alpha >= beta) {
+					break;
+				}
+			}
+
+			int bound = (best <= originalAlpha) ? TranspositionTable.UPPER
+					: (best >= beta) ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+			table.store(key, best, depth, bound, list[bestIndex]);
+			return best;
+		}
+
+		/**
+		 * Finds a lower bound on the value of placing a known tile by searching
+		 * only its most promising placement. This is the probing phase of
+		 * Star2.
+		 *
+		 * @param code
+		 *            The smallest code of the shape of the tile to place.
+		 * @param depth
+		 *            The number of placements to search ahead, at least 1.
+		 * @param ply
+		 *            The number of placements from the root.
+		 * @param floor
+		 *            The lowest value any position can have.
+		 * @param beta
+		 *            The value above which the exact value doesn't matter.
+		 * @return A lower bound on the value of the tile, which is at least
+		 *         beta if the value is.
+		 */
+		private double probe(int code, int depth, int ply, double floor, double beta) {
+			long key = model.positionHash() ^ CODE_KEYS[code];
+			double lower = floor;
+			int move = -1;
+			if (table.probe(key, entry)) {
+				if (entry.getDepth() >= depth && entry.getBound() != TranspositionTable.UPPER) {
+					lower = Math.max(lower, entry.getValue());
+					if (lower >= beta) {
+						return lower;
+					}
+				}
+				move = entry.getMove();
+			}
+			if (move < 0 || !isLegal(code, move)) {
+				legalMoves(code, ply);
+				move = moves[ply][0];
+			}
+
+			// The window starts at the lowest possible value, so any result
+			// below beta is exact.
+			place(code, move);
+			double value = -chance(depth - 1, ply + 1, -beta, -floor);
+			model.undo();
+			return Math.max(lower, value);
+		}
+
+		/**
+		 * Searches the tiles that could be drawn next.
+		 *
+		 * @param depth
+		 *            The number of placements to search ahead.
+		 * @param ply
+		 *            The number of placements from the root.
+		 * @param alpha
+		 *            The value below which the exact value doesn't matter.
+		 * @param beta
+		 *            The value above which the exact value doesn't matter.
+		 * @return The expected value for the player to move, or a bound on it
+		 *         if it is outside the window.
+		 */
+		private double chance(int depth, int ply, double alpha, double beta) {
+			// Leaves are counted too, so the clock is checked just as often
+			// however many of the positions are leaves.
+			if (countNode()) {
+				return 0;
+			}
+			boolean red = model.getTurn() == Model.Turn.RED;
+			int score = red ? model.getRedScore() - model.getBlueScore() : model.getBlueScore() - model.getRedScore();
+			if (model.isGameOver()) {
+				return score;
+			}
+			if (depth == 0) {
+				int unfinished = model.getUnfinishedTiles(Owner.RED) - model.getUnfinishedTiles(Owner.BLUE);
+				return score + UNFINISHED_WEIGHT * (red ? unfinished : -unfinished);
+			}
+			int unscored = 2 * boardSize * boardSize - model.getRedScore() - model.getBlueScore();
+			double floor = score - unscored;
+			double ceiling = score + unscored;
+			if (beta <= floor) {
+				return floor;
+			}
+			if (alpha >= ceiling) {
+				return ceiling;
+			}
+
+			// Chance nodes are keyed by the position alone.
+			long key = model.positionHash();
+			if (table.probe(key, entry) && entry.getDepth() >= depth) {
+				double value = entry.getValue();
+				switch (entry.getBound()) {
+				case TranspositionTable.EXACT:
+					return value;
+				case TranspositionTable.LOWER:
+					alpha = Math.max(alpha, value);
+					break;
+				default:
+					beta = Math.min(beta, value);
+					break;
+				}
+				if (alpha >= beta) {
+					return value;
+				}
+			}
+
+			int[] legal = classes[ply];
+			double[] lower = lowers[ply];
+			int count = 0;
+			int weight = 0;
+			boolean byCode = model.getTileDistribution() == Model.TileDistribution.CODES;
+			for (int shapes = model.getLegalShapes(); shapes != 0; shapes &= shapes - 1) {
+				int shape = Integer.numberOfTrailingZeros(shapes);
+				legal[count++] = shape;
+				weight += byCode ? TileCode.shapeSize(shape) : 1;
+			}
+
+			// Star2: probe one placement of each tile for a lower bound, and
+			// stop as soon as those bounds are enough.
+			double probed = 0;
+			double rest = 1;
+			for (int i = 0; i < count; i++) {
+				double p = (byCode ? TileCode.shapeSize(legal[i]) : 1.0) / weight;
+				rest -= p;
+				double threshold = (beta - probed - rest * floor) / p;
+				lower[i] = (threshold > ceiling) ? floor
+						: probe(TileCode.shapeCode(legal[i]), depth, ply, floor, threshold);
+				if (aborted) {
+					return 0;
+				}
+				if (lower[i] >= threshold) {
+					return cutoff(key, depth, probed + p * lower[i] + rest * floor, TranspositionTable.LOWER);
+				}
+				probed += p * lower[i];
+			}
+
+			// Star1: search each tile with the window that could still change
+			// the result, knowing the bounds of the others.
+			double sum = 0;
+			double lowRest = probed;
+			rest = 1;
+			for (int i = 0; i < count; i++) {
+				double p = (byCode ? TileCode.shapeSize(legal[i]) : 1.0) / weight;
+				rest -= p;
+				lowRest -= p * lower[i];
+				double a = (alpha - sum - rest * ceiling) / p;
+				double b = (beta - sum - lowRest) / p;
+				double value = choice(TileCode.shapeCode(legal[i]), depth, ply, Math.max(a, lower[i]), Math.min(b, ceiling));
+				if (aborted) {
+					return 0;
+				}
+				if (value >= b) {
+					return cutoff(key, depth, sum + p * value + lowRest, TranspositionTable.LOWER);
+				}
+				if (value <= a) {
+					return cutoff(key, depth, sum + p * value + rest * ceiling, TranspositionTable.UPPER);
+				}
+				sum += p * value;
+			}
+			return cutoff(key, depth, sum, TranspositionTable.EXACT);
+		}
+
+		/**
+		 * Stores the result of a chance node in the transposition table.
+		 *
+		 * @param key
+		 *            The hash of the position.
+		 * @param depth
+		 *            The depth the position was searched to.
+		 * @param value
+		 *            The value or bound found.
+		 * @param bound
+		 *            EXACT, LOWER, or UPPER.
+		 * @return The value.
+		 */
+		private double cutoff(long key, int depth, double value, int bound) {
+			table.store(key, value, depth, bound, -1);
+			return value;
+		}
+
+		/**
+		 * Counts a searched position, and checks the clock every so often.
+		 *
+		 * @return Whether the search should stop.
+		 */
+		private boolean countNode() {
+			nodes++;
+			if (mayAbort && (nodes & (CLOCK_INTERVAL - 1)) == 0 && (stop.get() || System.nanoTime() > deadline)) {
+				aborted = true;
+			}
+			return aborted;
+		}
+
+		/**
+		 * Gets the placement list for a ply, making it big enough for every
+		 * space in every rotation.
+		 *
+		 * @param ply
+		 *            The ply.
+		 * @return The placement list.
+		 */
+		private int[] moveList(int ply) {
+			if (moves[ply] == null) {
+				moves[ply] = new int[4 * boardSize * boardSize];
+			}
+			return moves[ply];
+		}
+
+		/**
+		 * Finds every distinct legal placement of a tile.
+		 *
+		 * @param code
+		 *            The code of the tile.
+		 * @param ply
+		 *            The ply whose placement list to fill in.
+		 * @return The number of placements found.
+		 */
+		private int legalMoves(int code, int ply) {
+			int[] list = moveList(ply);
+			int count = model.legalPlacements(code, true, placements);
+			for (int i = 0; i < count; i++) {
+				list[i] = move(placements.getX(i), placements.getY(i), placements.getRotations(i));
+			}
+			return count;
+		}
+
+		/**
+		 * Checks whether a placement of a tile is legal. Moves from the
+		 * transposition table are checked before use, in case two positions
+		 * share a hash.
+		 *
+		 * @param code
+		 *            The code of the tile.
+		 * @param move
+		 *            The packed placement.
+		 * @return Whether the placement is legal.
+		 */
+		private boolean isLegal(int code, int move) {
+			int space = move >>> 2;
+			if (space >= boardSize * boardSize) {
+				return false;
+			}
+			return model.isMoveValid(moveX(move), moveY(move), TileType.of(rotate(code, moveRotations(move))));
+		}
+
+		/**
+		 * Places a tile in the model.
+		 *
+		 * @param code
+		 *            The code of the tile, before it is rotated.
+		 * @param move
+		 *            The packed placement.
+		 */
+		private void place(int code, int move) {
+			model.placeTile(moveX(move), moveY(move), TileType.of(rotate(code, moveRotations(move))));
+		}
+
+	}
+
+	/**
+	 * Rotates a tile code clockwise a number of times.
+	 *
+	 * @param code
+	 *            The tile code.
+	 * @param rotations
+	 *            The number of clockwise rotations.
+	 * @return The rotated code.
+	 */
+	private static int rotate(int code, int rotations) {
+		for (int r = 0; r < rotations; r++) {
+			code = TileCode.rotateRight(code);
+		}
+		return code;
+	}
+
+	/**
+	 * Moves a placement to the front of a list, if it is in the list.
+	 *
+	 * @param list
+	 *            The placements.
+	 * @param count
+	 *            The number of placements in the list.
+	 * @param move
+	 *            The placement to move.
+	 */
+	private static void moveToFront(int[] list, int count, int move) {
+		for (int i = 0; i < count; i++) {
+			if (list[i] == move) {
+				System.arraycopy(list, 0, list, 1, i);
+				list[0] = move;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Rotates all but the first placement of a list, so that helper threads
+	 * search in a different order from the main search.
+	 *
+	 * @param list
+	 *            The placements.
+	 * @param count
+	 *            The number of placements in the list.
+	 * @param shift
+	 *            How far to rotate.
+	 */
+	private static void rotateTail(int[] list, int count, int shift) {
+		if (count <= 2) {
+			return;
+		}
+		int n = count - 1;
+		shift %= n;
+		int[] tail = Arrays.copyOfRange(list, 1, count);
+		for (int i = 0; i < n; i++) {
+			list[1 + i] = tail[(i + shift) % n];
+		}
+	}
+
+}
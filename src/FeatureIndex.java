@@ -0,0 +1,414 @@
+import java.util.Arrays;
+
+/**
+ * A disjoint-set (union-find) index of the features of one
+ * {@linkplain QuadrantType} on a game board. Every tile that has roads (or
+ * cities) is a node, and every connected road (or city) is a set of nodes. The
+ * root of each set holds the owner, tile count, and number of open edges of
+ * the whole feature, so merging features and checking whether a feature is
+ * complete take near-constant time.
+ *
+ * Each set also keeps its nodes in a circular linked list, so all the tiles of
+ * a feature can be visited without crawling the board, and the index keeps a
+ * running total of the tiles in each owner's unfinished features, so
+ * evaluating a position doesn't have to either.
+ *
+ * Changes can be recorded in an {@linkplain UndoJournal}. While they are,
+ * lookups don't compress paths, because a compressed path could skip over a
+ * root that an undo would separate again. Union by size still keeps lookups
+ * logarithmic.
+ *
+ * @author Ben Visness
+ *
+ */
+public class FeatureIndex implements Undoable {
+
+	/**
+	 * The journal field for {@link #parent}.
+	 */
+	private static final int PARENT = 0;
+
+	/**
+	 * The journal field for {@link #tiles}.
+	 */
+	private static final int TILES = 1;
+
+	/**
+	 * The journal field for {@link #openEdges}.
+	 */
+	private static final int OPEN_EDGES = 2;
+
+	/**
+	 * The journal field for {@link #owners}.
+	 */
+	private static final int OWNER = 3;
+
+	/**
+	 * The journal field for {@link #next}.
+	 */
+	private static final int NEXT = 4;
+
+	/**
+	 * The values of Owner, indexed by ordinal.
+	 */
+	private static final Owner[] OWNERS = Owner.values();
+
+	/**
+	 * The parent of each node, or -1 if the node is not in the index. A root is
+	 * its own parent.
+	 */
+	private int[] parent;
+
+	/**
+	 * The number of tiles in each feature. Only meaningful for roots.
+	 */
+	private int[] tiles;
+
+	/**
+	 * The number of edges of each feature that lead to empty spaces on the
+	 * board. Only meaningful for roots.
+	 */
+	private int[] openEdges;
+
+	/**
+	 * The ordinal of the owner of each feature. Only meaningful for roots.
+	 */
+	private byte[] owners;
+
+	/**
+	 * The next node in each feature's circular list of nodes.
+	 */
+	private int[] next;
+
+	/**
+	 * The number of tiles in the unfinished features of each owner, indexed by
+	 * ordinal. Kept up to date by every change to a root, including undos.
+	 */
+	private int[] unfinished = new int[OWNERS.length];
+
+	/**
+	 * The journal that changes are recorded in, or null if they aren't.
+	 */
+	private UndoJournal journal;
+
+	/**
+	 * Constructs a new, empty FeatureIndex.
+	 *
+	 * @param nodes
+	 *            The number of nodes the index can hold. (One per space on the
+	 *            board.)
+	 */
+	public FeatureIndex(int nodes) {
+		parent = new int[nodes];
+		tiles = new int[nodes];
+		openEdges = new int[nodes];
+		owners = new byte[nodes];
+		next = new int[nodes];
+		for (int i = 0; i < nodes; i++) {
+			parent[i] = -1;
+		}
+	}
+
+	/**
+	 * Constructs a copy of another FeatureIndex. The copy does not record
+	 * changes in the other index's journal.
+	 *
+	 * @param other
+	 *            The index to copy.
+	 */
+	public FeatureIndex(FeatureIndex other) {
+		parent = other.parent.clone();
+		tiles = other.tiles.clone();
+		openEdges = other.openEdges.clone();
+		owners = other.owners.clone();
+		next = other.next.clone();
+		unfinished = other.unfinished.clone();
+	}
+
+	/**
+	 * Makes room for more nodes in the index.
+	 *
+	 * @param nodes
+	 *            The number of nodes the index must be able to hold.
+	 */
+	public void grow(int nodes) {
+		int oldLength = parent.length;
+		if (nodes <= oldLength) {
+			return;
+		}
+
+		int newLength = Math.max(nodes, 2 * oldLength);
+		parent = Arrays.copyOf(parent, newLength);
+		tiles = Arrays.copyOf(tiles, newLength);
+		openEdges = Arrays.copyOf(openEdges, newLength);
+		owners = Arrays.copyOf(owners, newLength);
+		next = Arrays.copyOf(next, newLength);
+		Arrays.fill(parent, oldLength, newLength, -1);
+	}
+
+	/**
+	 * Starts or stops recording changes in a journal.
+	 *
+	 * @param journal
+	 *            The journal to record changes in, or null to stop recording.
+	 */
+	public void setJournal(UndoJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Implements restore from Undoable.
+	 */
+	@Override
+	public void restore(int field, int index, int value) {
+		// Whatever is restored, the node's feature is taken out of the
+		// unfinished totals before and put back after, if it is a root.
+		if (field != NEXT) {
+			count(index, -1);
+		}
+		switch (field) {
+		case PARENT:
+			parent[index] = value;
+			break;
+		case TILES:
+			tiles[index] = value;
+			break;
+		case OPEN_EDGES:
+			openEdges[index] = value;
+			break;
+		case OWNER:
+			owners[index] = (byte) value;
+			break;
+		case NEXT:
+			next[index] = value;
+			break;
+		default:
+			throw new IllegalArgumentException(field + ": unknown journal field");
+		}
+		if (field != NEXT) {
+			count(index, 1);
+		}
+	}
+
+	/**
+	 * Adds a feature's tiles to, or removes them from, its owner's unfinished
+	 * total, if the node is a root and the feature is unfinished.
+	 *
+	 * @param node
+	 *            The node. Nothing is counted unless it is a root.
+	 * @param sign
+	 *            1 to add the tiles, or -1 to remove them.
+	 */
+	private void count(int node, int sign) {
+		if (parent[node] == node && openEdges[node] > 0) {
+			unfinished[owners[node]] += sign * tiles[node];
+		}
+	}
+
+	/**
+	 * Gets the number of tiles in the unfinished features of an owner. This
+	 * takes constant time.
+	 *
+	 * @param owner
+	 *            The owner to count for.
+	 * @return The number of tiles in the owner's unfinished features.
+	 */
+	public int getUnfinishedTiles(Owner owner) {
+		return unfinished[owner.ordinal()];
+	}
+
+	/**
+	 * Adds a node to the index as a new feature of one tile, with no open edges
+	 * and no owner.
+	 *
+	 * @param node
+	 *            The node to add.
+	 */
+	public void add(int node) {
+		// The other fields mean nothing once the node is absent again.
+		if (journal != null) {
+			journal.record(this, PARENT, node, parent[node]);
+		}
+		parent[node] = node;
+		tiles[node] = 1;
+		openEdges[node] = 0;
+		owners[node] = (byte) Owner.NONE.ordinal();
+		next[node] = node;
+		// With no open edges the new feature doesn't count as unfinished yet.
+	}
+
+	/**
+	 * Checks whether a node is in the index.
+	 *
+	 * @param node
+	 *            The node to check.
+	 * @return Whether the node is in the index.
+	 */
+	public boolean contains(int node) {
+		return parent[node] >= 0;
+	}
+
+	/**
+	 * Finds the root of the feature containing a given node.
+	 *
+	 * @param node
+	 *            The node to look up. It must be in the index.
+	 * @return The root node of the node's feature.
+	 */
+	public int find(int node) {
+		if (journal != null) {
+			while (parent[node] != node) {
+				node = parent[node];
+			}
+			return node;
+		}
+
+		while (parent[node] != node) {
+			parent[node] = parent[parent[node]]; // Path halving
+			node = parent[node];
+		}
+		return node;
+	}
+
+	/**
+	 * Merges the features containing two nodes. The tile and open edge counts
+	 * are added together, and the owner of the larger feature is kept.
+	 *
+	 * @param a
+	 *            A node in the first feature.
+	 * @param b
+	 *            A node in the second feature.
+	 * @return The root of the merged feature.
+	 */
+	public int union(int a, int b) {
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA == rootB) {
+			return rootA;
+		}
+
+		// Hang the smaller tree under the larger one to keep the trees shallow.
+		if (tiles[rootA] < tiles[rootB]) {
+			int tmp = rootA;
+			rootA = rootB;
+			rootB = tmp;
+		}
+		if (journal != null) {
+			journal.record(this, PARENT, rootB, parent[rootB]);
+			journal.record(this, TILES, rootA, tiles[rootA]);
+			journal.record(this, OPEN_EDGES, rootA, openEdges[rootA]);
+			journal.record(this, NEXT, rootA, next[rootA]);
+			journal.record(this, NEXT, rootB, next[rootB]);
+		}
+		count(rootA, -1);
+		count(rootB, -1);
+		parent[rootB] = rootA;
+		tiles[rootA] += tiles[rootB];
+		openEdges[rootA] += openEdges[rootB];
+		count(rootA, 1);
+
+		// Swapping the successors of one node from each list joins the two
+		// circular lists into one.
+		int tmp = next[rootA];
+		next[rootA] = next[rootB];
+		next[rootB] = tmp;
+
+		return rootA;
+	}
+
+	/**
+	 * Gets the owner of the feature containing a given node.
+	 *
+	 * @param node
+	 *            A node in the feature.
+	 * @return The owner of the feature.
+	 */
+	public Owner getOwner(int node) {
+		return OWNERS[owners[find(node)]];
+	}
+
+	/**
+	 * Sets the owner of the feature containing a given node.
+	 *
+	 * @param node
+	 *            A node in the feature.
+	 * @param owner
+	 *            The new owner of the feature.
+	 */
+	public void setOwner(int node, Owner owner) {
+		int root = find(node);
+		if (journal != null) {
+			journal.record(this, OWNER, root, owners[root]);
+		}
+		count(root, -1);
+		owners[root] = (byte) owner.ordinal();
+		count(root, 1);
+	}
+
+	/**
+	 * Gets the number of tiles in the feature containing a given node.
+	 *
+	 * @param node
+	 *            A node in the feature.
+	 * @return The number of tiles in the feature.
+	 */
+	public int getTileCount(int node) {
+		return tiles[find(node)];
+	}
+
+	/**
+	 * Gets the number of open edges of the feature containing a given node.
+	 *
+	 * @param node
+	 *            A node in the feature.
+	 * @return The number of open edges of the feature.
+	 */
+	public int getOpenEdges(int node) {
+		return openEdges[find(node)];
+	}
+
+	/**
+	 * Adds to (or, with a negative number, subtracts from) the number of open
+	 * edges of the feature containing a given node.
+	 *
+	 * @param node
+	 *            A node in the feature.
+	 * @param delta
+	 *            The number of edges to add.
+	 */
+	public void addOpenEdges(int node, int delta) {
+		int root = find(node);
+		if (journal != null) {
+			journal.record(this, OPEN_EDGES, root, openEdges[root]);
+		}
+		count(root, -1);
+		openEdges[root] += delta;
+		count(root, 1);
+	}
+
+	/**
+	 * Checks whether the feature containing a given node is complete, meaning
+	 * it has no open edges.
+	 *
+	 * @param node
+	 *            A node in the feature.
+	 * @return Whether the feature is complete.
+	 */
+	public boolean isComplete(int node) {
+		return getOpenEdges(node) == 0;
+	}
+
+	/**
+	 * Gets the next node in the same feature as a given node. Following this
+	 * method from any node visits every node of the feature once before
+	 * returning to the start.
+	 *
+	 * @param node
+	 *            A node in the feature.
+	 * @return The next node in the feature.
+	 */
+	public int next(int node) {
+		return next[node];
+	}
+
+}
@@ -0,0 +1,394 @@
+import java.util.Arrays;
+
+/**
+ * The frontier of a game board: the set of empty spaces that are next to at
+ * least one placed tile, which are the only spaces where a tile can legally be
+ * placed. Each space in the frontier has a constraint mask describing the
+ * sides of its neighbors.
+ *
+ * A constraint mask has the same layout as a {@linkplain TileCode}: two bits
+ * per side, holding the ordinal of the {@linkplain QuadrantType} that a tile
+ * must have on that side, or 3 if there is no neighbor on that side.
+ *
+ * The frontier also counts, for each shape of tile (see
+ * {@linkplain TileCode}), how many of its spaces that shape fits in some
+ * rotation, so the shapes that can be placed anywhere are known without
+ * looking at the board.
+ *
+ * Changes can be recorded in an {@linkplain UndoJournal}, so the frontier can
+ * be put back exactly as it was, including its order. The shape counts aren't
+ * recorded; they follow the spaces and constraint masks as those are put
+ * back.
+ *
+ * @author Ben Visness
+ *
+ */
+public class Frontier implements Undoable {
+
+	/**
+	 * The journal field for {@link #spaces}.
+	 */
+	private static final int SPACES = 0;
+
+	/**
+	 * The journal field for {@link #positions}.
+	 */
+	private static final int POSITIONS = 1;
+
+	/**
+	 * The journal field for {@link #constraints}.
+	 */
+	private static final int CONSTRAINTS = 2;
+
+	/**
+	 * The journal field for {@link #count}.
+	 */
+	private static final int COUNT = 3;
+
+	/**
+	 * A constraint mask with no neighbors on any side.
+	 */
+	public static final int UNCONSTRAINED = 0xFF;
+
+	/**
+	 * A table of the legal rotations of every tile code against every
+	 * constraint mask, indexed by the code times 256 plus the mask. Bit r of
+	 * each entry is set if the tile fits after rotating it clockwise r times.
+	 *
+	 * @see #legalRotations(int, int)
+	 */
+	private static final byte[] LEGAL_ROTATIONS = new byte[256 * 256];
+
+	/**
+	 * The shapes that fit each constraint mask in some rotation. Bit s of each
+	 * entry is set if shape s fits.
+	 */
+	private static final int[] FITTING_SHAPES = new int[256];
+
+	static {
+		for (int code = 0; code < 256; code++) {
+			// A space with no neighbors is never legal, so its entries stay 0.
+			for (int constraints = 0; constraints < UNCONSTRAINED; constraints++) {
+				int rotated = code;
+				int rotations = 0;
+				for (int r = 0; r < 4; r++) {
+					if (fits(rotated, constraints)) {
+						rotations |= 1 << r;
+					}
+					rotated = TileCode.rotateRight(rotated);
+				}
+				LEGAL_ROTATIONS[(code << 8) | constraints] = (byte) rotations;
+			}
+		}
+		for (int constraints = 0; constraints < UNCONSTRAINED; constraints++) {
+			for (int shape = 0; shape < TileCode.SHAPE_COUNT; shape++) {
+				if (legalRotations(TileCode.shapeCode(shape), constraints) != 0) {
+					FITTING_SHAPES[constraints] |= 1 << shape;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The spaces in the frontier, in no particular order. Only the first
+	 * {@link #count} entries are used.
+	 */
+	private int[] spaces;
+
+	/**
+	 * The number of spaces in the frontier.
+	 */
+	private int count;
+
+	/**
+	 * The position of each space in the spaces array, or -1 if the space is
+	 * not in the frontier.
+	 */
+	private int[] positions;
+
+	/**
+	 * The constraint mask of each space.
+	 */
+	private byte[] constraints;
+
+	/**
+	 * The number of spaces in the frontier that each shape fits, indexed by
+	 * shape.
+	 */
+	private int[] shapeSpaces = new int[TileCode.SHAPE_COUNT];
+
+	/**
+	 * The shapes that fit at least one space in the frontier. Bit s is set if
+	 * shapeSpaces[s] is more than 0.
+	 */
+	private int legalShapes;
+
+	/**
+	 * The journal that changes are recorded in, or null if they aren't.
+	 */
+	private UndoJournal journal;
+
+	/**
+	 * Constructs a new, empty Frontier.
+	 *
+	 * @param spaces
+	 *            The number of spaces on the board.
+	 */
+	public Frontier(int spaces) {
+		this.spaces = new int[spaces];
+		positions = new int[spaces];
+		constraints = new byte[spaces];
+		for (int i = 0; i < spaces; i++) {
+			positions[i] = -1;
+			constraints[i] = (byte) UNCONSTRAINED;
+		}
+	}
+
+	/**
+	 * Constructs a copy of another Frontier. The copy does not record changes
+	 * in the other frontier's journal.
+	 *
+	 * @param other
+	 *            The frontier to copy.
+	 */
+	public Frontier(Frontier other) {
+		spaces = other.spaces.clone();
+		count = other.count;
+		positions = other.positions.clone();
+		constraints = other.constraints.clone();
+		shapeSpaces = other.shapeSpaces.clone();
+		legalShapes = other.legalShapes;
+	}
+
+	/**
+	 * Makes room for more spaces on the board.
+	 *
+	 * @param spaces
+	 *            The number of spaces on the board.
+	 */
+	public void grow(int spaces) {
+		int oldLength = positions.length;
+		if (spaces <= oldLength) {
+			return;
+		}
+
+		int newLength = Math.max(spaces, 2 * oldLength);
+		this.spaces = Arrays.copyOf(this.spaces, newLength);
+		positions = Arrays.copyOf(positions, newLength);
+		constraints = Arrays.copyOf(constraints, newLength);
+		Arrays.fill(positions, oldLength, newLength, -1);
+		Arrays.fill(constraints, oldLength, newLength, (byte) UNCONSTRAINED);
+	}
+
+	/**
+	 * Starts or stops recording changes in a journal.
+	 *
+	 * @param journal
+	 *            The journal to record changes in, or null to stop recording.
+	 */
+	public void setJournal(UndoJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Implements restore from Undoable.
+	 */
+	@Override
+	public void restore(int field, int index, int value) {
+		switch (field) {
+		case SPACES:
+			spaces[index] = value;
+			break;
+		case POSITIONS:
+			// Only a space joining or leaving the frontier changes the shape
+			// counts.
+			if ((positions[index] >= 0) != (value >= 0)) {
+				countShapes(getConstraints(index), (value >= 0) ? 1 : -1);
+			}
+			positions[index] = value;
+			break;
+		case CONSTRAINTS:
+			if (positions[index] >= 0) {
+				countShapes(getConstraints(index), -1);
+				countShapes(value & 0xFF, 1);
+			}
+			constraints[index] = (byte) value;
+			break;
+		case COUNT:
+			count = value;
+			break;
+		default:
+			throw new IllegalArgumentException(field + ": unknown journal field");
+		}
+	}
+
+	/**
+	 * Gets the number of spaces in the frontier.
+	 *
+	 * @return The number of spaces in the frontier.
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Gets a space in the frontier by position. Positions change as spaces are
+	 * added and removed.
+	 *
+	 * @param i
+	 *            The position, from 0 to size() - 1.
+	 * @return The space at the given position.
+	 */
+	public int get(int i) {
+		return spaces[i];
+	}
+
+	/**
+	 * Checks whether a space is in the frontier.
+	 *
+	 * @param space
+	 *            The space to check.
+	 * @return Whether the space is in the frontier.
+	 */
+	public boolean contains(int space) {
+		return positions[space] >= 0;
+	}
+
+	/**
+	 * Gets the constraint mask of a space.
+	 *
+	 * @param space
+	 *            The space to check.
+	 * @return The constraint mask of the space.
+	 */
+	public int getConstraints(int space) {
+		return constraints[space] & 0xFF;
+	}
+
+	/**
+	 * Records that a tile was placed next to an empty space, adding the space
+	 * to the frontier if necessary.
+	 *
+	 * @param space
+	 *            The empty space.
+	 * @param side
+	 *            The side of the empty space that the tile is on.
+	 * @param type
+	 *            The ordinal of the quadrant type the tile has facing the
+	 *            empty space.
+	 */
+	public void constrain(int space, int side, int type) {
+		int shift = 2 * side;
+		if (journal != null) {
+			journal.record(this, CONSTRAINTS, space, constraints[space]);
+		}
+		if (positions[space] >= 0) {
+			countShapes(getConstraints(space), -1);
+		}
+		constraints[space] = (byte) ((constraints[space] & ~(3 << shift)) | (type << shift));
+		if (positions[space] < 0) {
+			if (journal != null) {
+				journal.record(this, POSITIONS, space, positions[space]);
+				journal.record(this, SPACES, count, spaces[count]);
+				journal.record(this, COUNT, 0, count);
+			}
+			positions[space] = count;
+			spaces[count++] = space;
+		}
+		countShapes(getConstraints(space), 1);
+	}
+
+	/**
+	 * Removes a space from the frontier because a tile was placed on it.
+	 *
+	 * @param space
+	 *            The space to remove.
+	 */
+	public void remove(int space) {
+		int position = positions[space];
+		if (position < 0) {
+			return;
+		}
+
+		if (journal != null) {
+			journal.record(this, COUNT, 0, count);
+			journal.record(this, SPACES, position, spaces[position]);
+			journal.record(this, POSITIONS, spaces[count - 1], positions[spaces[count - 1]]);
+			journal.record(this, POSITIONS, space, positions[space]);
+		}
+
+		// Move the last space into the hole so the array stays packed.
+		int last = spaces[--count];
+		spaces[position] = last;
+		positions[last] = position;
+		positions[space] = -1;
+		countShapes(getConstraints(space), -1);
+	}
+
+	/**
+	 * Gets the shapes of tile that fit at least one space in the frontier in
+	 * some rotation.
+	 *
+	 * @return A mask with bit s set if shape s can be placed somewhere.
+	 * @see TileCode#shape(int)
+	 */
+	public int getLegalShapes() {
+		return legalShapes;
+	}
+
+	/**
+	 * Adds a space's constraint mask to (or, with a negative number, removes
+	 * it from) the count of every shape that fits it.
+	 *
+	 * @param constraints
+	 *            The constraint mask of the space.
+	 * @param delta
+	 *            1 to add the space, or -1 to remove it.
+	 */
+	private void countShapes(int constraints, int delta) {
+		int shapes = FITTING_SHAPES[constraints];
+		while (shapes != 0) {
+			int shape = Integer.numberOfTrailingZeros(shapes);
+			shapes &= shapes - 1;
+			shapeSpaces[shape] += delta;
+			if (shapeSpaces[shape] == 0) {
+				legalShapes &= ~(1 << shape);
+			} else {
+				legalShapes |= 1 << shape;
+			}
+		}
+	}
+
+	/**
+	 * Gets the rotations in which a tile can legally be placed in a space with
+	 * a given constraint mask.
+	 *
+	 * @param code
+	 *            The {@linkplain TileCode} of the tile.
+	 * @param constraints
+	 *            The constraint mask of the space.
+	 * @return A mask with bit r set if the tile fits after rotating it
+	 *         clockwise r times, or 0 if it does not fit at all.
+	 */
+	public static int legalRotations(int code, int constraints) {
+		return LEGAL_ROTATIONS[(code << 8) | constraints];
+	}
+
+	/**
+	 * Checks whether a tile fits a constraint mask without rotating it.
+	 *
+	 * @param code
+	 *            The {@linkplain TileCode} of the tile.
+	 * @param constraints
+	 *            The constraint mask of a space.
+	 * @return Whether every side of the tile matches its neighbor, if any.
+	 */
+	public static boolean fits(int code, int constraints) {
+		// Sides with no neighbor have both bits set. Spread that into a mask
+		// of both bits and ignore those sides in the comparison.
+		int free = constraints & (constraints >>> 1) & 0x55;
+		free |= free << 1;
+		return ((code ^ constraints) & ~free & 0xFF) == 0;
+	}
+
+}
@@ -7,9 +7,7 @@ import java.awt.FlowLayout;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.File;
 
-import javax.imageio.ImageIO;
 import javax.swing.BoxLayout;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
@@ -23,11 +21,14 @@ import javax.swing.text.StyleConstants;
 import javax.swing.text.StyledDocument;
 
 /**
- * Defines a GUI for a game of Carcassonne.
+ * Defines a GUI for a game of Carcassonne. The game is played on a
+ * {@linkplain GameWorker}, so the event dispatch thread only checks clicks and
+ * shows the updates the worker sends back. Hints are searched for by a
+ * {@linkplain HintEngine} on its own threads.
  * @author Ben Visness
  *
  */
-public class GUI extends JFrame implements ActionListener {
+public class GUI extends JFrame implements ActionListener, GameWorker.Listener, HintEngine.Listener {
 	
 	/**
 	 * Meh, warnings
@@ -45,15 +46,43 @@ public class GUI extends JFrame implements ActionListener {
 	private static final int INPUT_WIDTH = 250;
 	
 	/**
-	 * The Carcassonne model that this GUI uses.
+	 * The time budgets, in milliseconds, that can be chosen for hints.
 	 */
-	private Model model;
+	private static final long[] HINT_MILLIS = { 500, 1000, 2000, 5000 };
+	
+	/**
+	 * The worker that plays the game on its own thread.
+	 */
+	private GameWorker worker;
+	
+	/**
+	 * The engine that searches for hints.
+	 */
+	private HintEngine hints;
+	
+	/**
+	 * The last update sent by the worker, or null if the game hasn't started
+	 * yet.
+	 */
+	private GameWorker.Update state;
+	
+	/**
+	 * Whether a placement has been sent to the worker and its update hasn't
+	 * come back yet. Clicks are ignored until it does.
+	 */
+	private boolean placing;
 	
 	/**
 	 * The tile to place on the board next.
 	 */
 	private Tile nextTile;
 	
+	/**
+	 * The number of times the next tile has been rotated clockwise since it
+	 * was drawn, from 0 to 3.
+	 */
+	private int nextRotation;
+	
 	/**
 	 * The number of spaces in one row or column of the board.
 	 */
@@ -64,6 +93,11 @@ public class GUI extends JFrame implements ActionListener {
 	 */
 	private JPanel boardPanel;
 	
+	/**
+	 * The component that displays the game board.
+	 */
+	private BoardComponent board;
+	
 	/**
 	 * The panel containing all the game input stuff.
 	 */
@@ -84,6 +118,11 @@ public class GUI extends JFrame implements ActionListener {
 	 */
 	private JButton rotateLeftButton;
 	
+	/**
+	 * The button that asks for a hint.
+	 */
+	private JButton hintButton;
+	
 	/**
 	 * The text pane that displays messages to the user.
 	 */
@@ -129,10 +168,18 @@ public class GUI extends JFrame implements ActionListener {
 	 */
 	private JComboBox<String> boardSizeSelector;
 	
+	/**
+	 * The combo box that lets users select how long to search for hints.
+	 */
+	private JComboBox<String> hintTimeSelector;
+	
 	/**
 	 * Constructs a new GUI.
 	 */
 	private GUI() throws Exception {		
+		TileAtlas atlas = TileAtlas.getDefault();
+		hints = new HintEngine(this);
+		
 		boardPanel = new JPanel(new GridLayout(1,1));
 		boardPanel.setPreferredSize(new Dimension(BOARD_WIDTH, BOARD_WIDTH));
 		
@@ -144,11 +191,11 @@ public class GUI extends JFrame implements ActionListener {
 		nextTileButton = new TileImageButton();
 		nextTileButton.setPreferredSize(new Dimension(100, 100));
 		nextTileButton.setEnabled(false);
-		ImageIcon rlIcon = new ImageIcon(ImageIO.read(new File("images/rotateLeft.png")));
+		ImageIcon rlIcon = new ImageIcon(atlas.getImage("rotateLeft"));
 		rotateLeftButton = new JButton();
 		rotateLeftButton.setIcon(rlIcon);
 		rotateLeftButton.addActionListener(this);
-		ImageIcon rrIcon = new ImageIcon(ImageIO.read(new File("images/rotateRight.png")));
+		ImageIcon rrIcon = new ImageIcon(atlas.getImage("rotateRight"));
 		rotateRightButton = new JButton();
 		rotateRightButton.setIcon(rrIcon);
 		rotateRightButton.addActionListener(this);
@@ -158,6 +205,12 @@ public class GUI extends JFrame implements ActionListener {
 		tilePanel.setPreferredSize(new Dimension(INPUT_WIDTH, BOARD_WIDTH / 2));
 		centerPanel.add(tilePanel);
 		
+		// Hint button
+		hintButton = new JButton("Hint");
+		hintButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+		hintButton.addActionListener(this);
+		centerPanel.add(hintButton);
+		
 		// Message box
 		messagePane = new JTextPane();
 		messagePane.setOpaque(false);
@@ -201,7 +254,7 @@ public class GUI extends JFrame implements ActionListener {
 		// Build the options panel
 		JPanel optionsPanel = new JPanel();
 		optionsPanel.setLayout(new BoxLayout(optionsPanel, BoxLayout.Y_AXIS));
-		optionsFields = new JPanel(new GridLayout(1,1));
+		optionsFields = new JPanel(new GridLayout(2,1));
 		boardSizeSelector = new JComboBox<String>();
 		boardSizeSelector.addItem("3 x 3");
 		boardSizeSelector.addItem("5 x 5");
@@ -209,13 +262,22 @@ public class GUI extends JFrame implements ActionListener {
 		boardSizeSelector.addItem("9 x 9");
 		boardSizeSelector.addItem("15 x 15");
 		boardSizeSelector.addItem("21 x 21");
+		boardSizeSelector.addItem("51 x 51");
+		boardSizeSelector.addItem("101 x 101");
+		boardSizeSelector.addItem("201 x 201");
 		boardSizeSelector.setSelectedIndex(4);
 		boardSizeSelector.addActionListener(this);
 		optionsFields.add(boardSizeSelector);
+		hintTimeSelector = new JComboBox<String>();
+		for (int i = 0; i < HINT_MILLIS.length; i++) {
+			hintTimeSelector.addItem("Hints: " + (HINT_MILLIS[i] / 1000.0) + " s");
+		}
+		hintTimeSelector.setSelectedIndex(1);
+		optionsFields.add(hintTimeSelector);
 		optionsFields.setVisible(false);
 		JPanel optionsButtonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
 		optionsButton = new JButton();
-		optionsButton.setIcon(new ImageIcon(ImageIO.read(new File("images/gear.png"))));
+		optionsButton.setIcon(new ImageIcon(atlas.getImage("gear")));
 		optionsButton.addActionListener(this);
 		optionsButtonPanel.add(optionsButton);
 		optionsPanel.add(optionsFields);
@@ -235,7 +297,6 @@ public class GUI extends JFrame implements ActionListener {
 		this.setResizable(false);
 		
 		newGame(15);
-		update();
 		
 		pack();
 		this.setDefaultCloseOperation(EXIT_ON_CLOSE);
@@ -250,52 +311,53 @@ public class GUI extends JFrame implements ActionListener {
 	 */
 	private void newGame(int boardSize) {
 		this.boardSize = boardSize;
-		model = new Model(boardSize);
+		if (worker != null) {
+			worker.shutdown();
+		}
+		hints.cancel();
 		boardPanel.removeAll();
-		boardPanel.add(boardPanelWithSize(boardSize));
-		nextTile = model.randomLegalTile();
-		nextTileButton.setTile(nextTile);
+		board = new BoardComponent(boardSize, BOARD_WIDTH);
+		board.addActionListener(this);
+		boardPanel.add(board);
+		state = null;
+		placing = true;
+		nextTile = null;
+		nextTileButton.setTile(null);
+		worker = new GameWorker(boardSize, board.getTileSize(), 100, this);
 		setEnabledRecursive(this.getContentPane(), true);
-		update();
 		revalidate();
 	}
 	
 	/**
-	 * Creates a new board panel with buttons and stuff.
-	 * 
-	 * @param boardSize
-	 *            The number of tiles in a given row or column of the new board.
-	 * @return A JPanel to be displayed as the game board.
+	 * Implements gameUpdated from GameWorker.Listener. Shows all the changes
+	 * from one move at once.
 	 */
-	private JPanel boardPanelWithSize(int boardSize) {
-		JPanel newPanel = new JPanel(new GridLayout(boardSize, boardSize));
-		int tileSize = BOARD_WIDTH / boardSize;
+	@Override
+	public void gameUpdated(GameWorker.Update update) {
+		state = update;
+		placing = false;
+		if (!update.isPlaced()) {
+			setMessage("You cannot place this tile there.");
+			showLegalSpaces();
+			return;
+		}
 		
-		for (int y = 0; y < boardSize; y++) {
-			for (int x = 0; x < boardSize; x++) {
-				TileImageButton newButton = new TileImageButton(x, y, tileSize, tileSize, model.getTile(x, y));
-				newButton.addActionListener(this);
-				newPanel.add(newButton);
-			}
+		// Update the board
+		for (int i = 0; i < update.getChangeCount(); i++) {
+			board.setTile(update.getChangedX(i), update.getChangedY(i), update.getChangedTile(i));
 		}
+		board.update();
 		
-		return newPanel;
-	}
-	
-	/**
-	 * Updates the state of UI components to reflect the game.
-	 */
-	private void update() {
-		// Update buttons
-		Component[] comps = ((JPanel)boardPanel.getComponents()[0]).getComponents();
-		for (int i = 0; i < comps.length; i++) {
-			if (comps[i] instanceof TileImageButton) {
-				((TileImageButton)comps[i]).update();
-			}
+		// Update the next tile
+		if (update.getNextTile() != null) {
+			nextTile = update.getNextTile().toTile();
+			nextRotation = 0;
+			nextTileButton.setTile(nextTile);
 		}
+		showLegalSpaces();
 		
 		// Update turn indicator
-		switch (model.getTurn()) {
+		switch (update.getTurn()) {
 		case RED:
 			redTurnIndicator.setVisible(true);
 			blueTurnIndicator.setVisible(false);
@@ -307,8 +369,85 @@ public class GUI extends JFrame implements ActionListener {
 		}
 		
 		// Update scores
-		redScoreLabel.setText(model.getRedScore() + "");
-		blueScoreLabel.setText(model.getBlueScore() + "");
+		redScoreLabel.setText(update.getRedScore() + "");
+		blueScoreLabel.setText(update.getBlueScore() + "");
+		
+		if (update.isGameOver()) {
+			setEnabledRecursive(boardPanel, false);
+			setEnabledRecursive(inputPanel, false);
+			messagePane.setEnabled(true);
+			redScoreLabel.setEnabled(true);
+			blueScoreLabel.setEnabled(true);
+			newGameButton.setEnabled(true);
+			newGameButton.setVisible(true);
+			setMessage(gameOverMessage(update));
+		}
+	}
+	
+	/**
+	 * Highlights the spaces on the board where the next tile can be placed in
+	 * its current rotation. The worker sent the spaces for every rotation with
+	 * the tile, so turning the tile only swaps which list is shown.
+	 */
+	private void showLegalSpaces() {
+		board.clearHighlights();
+		if (state == null || placing) {
+			return;
+		}
+		for (int i = 0; i < state.getLegalSpaceCount(nextRotation); i++) {
+			board.highlight(state.getLegalX(nextRotation, i), state.getLegalY(nextRotation, i));
+		}
+	}
+	
+	/**
+	 * Implements hintFound from HintEngine.Listener. Outlines the hinted space
+	 * and says how to place the tile there. Called again whenever the search
+	 * finds something better.
+	 */
+	@Override
+	public void hintFound(HintEngine.Hint hint) {
+		Placement placement = hint.getPlacement();
+		board.setHint(placement.getX(), placement.getY());
+		
+		String msg = "Hint: ";
+		int rotations = placement.getRotations();
+		if (rotations == 0) {
+			msg += "place the tile on the outlined space.";
+		} else {
+			msg += "rotate the tile clockwise " + rotations + (rotations == 1 ? " time" : " times")
+					+ " and place it on the outlined space.";
+		}
+		msg += " (" + hint.getDepth() + (hint.getDepth() == 1 ? " move" : " moves") + " ahead"
+				+ (hint.isFinished() ? ")" : ", still looking...)");
+		setMessage(msg);
+	}
+	
+	/**
+	 * Cancels the hint search, if there is one, and removes its outline.
+	 */
+	private void cancelHint() {
+		hints.cancel();
+		board.clearHint();
+	}
+	
+	/**
+	 * Builds the message that announces the winner of a finished game.
+	 * 
+	 * @param update
+	 *            The update that ended the game.
+	 * @return The message to display.
+	 */
+	private String gameOverMessage(GameWorker.Update update) {
+		String winString = "The game is over!";
+		Model.Turn winner = update.getWinner();
+		if (winner == Model.Turn.RED) {
+			winString += " Red wins!";
+		} else if (winner == Model.Turn.BLUE) {
+			winString += " Blue wins!";
+		} else {
+			winString += " It's a draw!";
+		}
+		return winString;
 	}
 	
 	/**
@@ -360,23 +499,46 @@ public class GUI extends JFrame implements ActionListener {
 	public void actionPerformed(ActionEvent e) {
 		String actionMsg = "";
 		if (e.getSource() == rotateLeftButton) {
-			nextTile.rotateLeft();
-			nextTileButton.update();
+			if (nextTile != null) {
+				cancelHint();
+				nextTile.rotateLeft();
+				nextRotation = (nextRotation + 3) % 4;
+				nextTileButton.update();
+				showLegalSpaces();
+			}
 		} else if (e.getSource() == rotateRightButton) {
-			nextTile.rotateRight();
-			nextTileButton.update();
-		} else if (e.getSource() instanceof TileImageButton) {
-			TileImageButton theButton = (TileImageButton)e.getSource();
-			if (model.isMoveValid(theButton.getGameX(), theButton.getGameY(), nextTile)) {
-				model.placeTile(theButton.getGameX(), theButton.getGameY(), nextTile);
-				theButton.setTile(nextTile);
-				
-				nextTile = model.randomLegalTile();
-				nextTileButton.setTile(nextTile);
+			if (nextTile != null) {
+				cancelHint();
+				nextTile.rotateRight();
+				nextRotation = (nextRotation + 1) % 4;
+				nextTileButton.update();
+				showLegalSpaces();
+			}
+		} else if (e.getSource() == board) {
+			if (placing || state == null || state.isGameOver()) {
+				return;
+			}
+			int x = board.getSelectedX();
+			int y = board.getSelectedY();
+			// The worker sent the spaces the next tile fits with it, so a
+			// click is checked without waiting for the worker.
+			if (state.isLegal(x, y, nextRotation)) {
+				placing = true;
+				cancelHint();
+				showLegalSpaces();
+				worker.placeTile(x, y, state.getNextTile().rotate(nextRotation));
 			} else {
 				actionMsg = "You cannot place this tile there.";
 			}
-			update();
+		} else if (e.getSource() == hintButton) {
+			if (placing || state == null || state.isGameOver()) {
+				return;
+			}
+			cancelHint();
+			int id = hints.newSearch();
+			long millis = HINT_MILLIS[hintTimeSelector.getSelectedIndex()];
+			worker.findHint(hints, id, state.getNextTile().rotate(nextRotation), millis);
+			actionMsg = "Looking for a hint...";
 		} else if (e.getSource() == boardSizeSelector) {
 			String newValue = (String)boardSizeSelector.getSelectedItem();
 			int newSize = Integer.parseInt(newValue.split(" ")[0]);
@@ -391,29 +553,8 @@ public class GUI extends JFrame implements ActionListener {
 			newGameButton.setVisible(false);
 		}
 		
-		if (model.isGameOver()) {
-			setEnabledRecursive(boardPanel, false);
-			setEnabledRecursive(inputPanel, false);
-			messagePane.setEnabled(true);
-			redScoreLabel.setEnabled(true);
-			blueScoreLabel.setEnabled(true);
-			newGameButton.setEnabled(true);
-			try {
-				String winString = "The game is over!";
-				Model.Turn winner = model.getWinner();
-				if (winner == Model.Turn.RED) {
-					winString += " Red wins!";
-				} else if (winner == Model.Turn.BLUE) {
-					winString += " Blue wins!";
-				} else if (winner == null){
-					winString += " It's a draw!";
-				}
-				actionMsg = winString;
-				newGameButton.setVisible(true);
-			}
-			catch (Exception ex) {
-				actionMsg = "ERROR: " + ex.getMessage();
-			}
+		if (state != null && state.isGameOver()) {
+			actionMsg = gameOverMessage(state);
 		}
 		
 		setMessage(actionMsg);
@@ -0,0 +1,604 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Plays a game for the {@linkplain GUI} on a background thread. The worker owns
+ * its {@linkplain Model}, and is the only thread that ever touches it: placing a
+ * tile, drawing the next tile, finding where the next tile fits and drawing the
+ * images of the tiles all happen on the worker. The results of each move are
+ * handed to the event dispatch thread as one immutable {@linkplain Update}, so
+ * the GUI never sees a half-finished move and never waits on the model.
+ * <p>
+ * The next tile depends on where the current one goes, so it can't be drawn
+ * before the player clicks. Instead, everything the next click needs is drawn
+ * ahead of it: each update comes with the next tile, its images in every
+ * rotation, and the spaces it fits in for each rotation, so the GUI can check
+ * the next click and highlight the legal spaces without asking the worker.
+ *
+ * @author Ben Visness
+ *
+ */
+public class GameWorker {
+
+	/**
+	 * This interface defines an observer for the moves made by a
+	 * {@linkplain GameWorker}.
+	 *
+	 * @author Ben Visness
+	 *
+	 */
+	public interface Listener {
+
+		/**
+		 * Performs actions when the game changes. Called on the event dispatch
+		 * thread, once when the game starts and once for every move.
+		 *
+		 * @param update
+		 *            The changes to the game.
+		 */
+		public void gameUpdated(Update update);
+
+	}
+
+	/**
+	 * The changes made by one move, along with the state of the game after it.
+	 * An update is never changed after it is made, so it can be read from any
+	 * thread.
+	 *
+	 * @author Ben Visness
+	 *
+	 */
+	public static class Update {
+
+		/**
+		 * Whether the move was made. False if the tile didn't fit.
+		 */
+		private final boolean placed;
+
+		/**
+		 * The x-coordinate of each changed space.
+		 */
+		private final int[] changedX;
+
+		/**
+		 * The y-coordinate of each changed space.
+		 */
+		private final int[] changedY;
+
+		/**
+		 * The tile in each changed space. These are copies, not the model's
+		 * tiles, so they never change.
+		 */
+		private final Tile[] changedTiles;
+
+		/**
+		 * The player whose turn it is after the move.
+		 */
+		private final Model.Turn turn;
+
+		/**
+		 * Red's score after the move.
+		 */
+		private final int redScore;
+
+		/**
+		 * Blue's score after the move.
+		 */
+		private final int blueScore;
+
+		/**
+		 * Whether the game is over after the move.
+		 */
+		private final boolean gameOver;
+
+		/**
+		 * The winner of the game, or null if the game is a draw or not over.
+		 */
+		private final Model.Turn winner;
+
+		/**
+		 * The tile to place next, or null if the game is over.
+		 */
+		private final TileType nextTile;
+
+		/**
+		 * For each space, a mask with bit r set if the next tile fits there
+		 * after rotating it clockwise r times, indexed by x + y * boardSize.
+		 */
+		private final byte[] legalRotations;
+
+		/**
+		 * For each number of clockwise rotations of the next tile, the spaces
+		 * it fits in, as x + y * boardSize.
+		 */
+		private final int[][] legalSpaces;
+
+		/**
+		 * The number of spaces in one row or column of the board.
+		 */
+		private final int boardSize;
+
+		/**
+		 * Constructs a new Update, reading the state of the game from a
+		 * model. Only called by the worker.
+		 *
+		 * @param model
+		 *            The model the move was made on.
+		 * @param boardSize
+		 *            The width and height of the game board.
+		 * @param placed
+		 *            Whether the move was made.
+		 * @param changedX
+		 *            The x-coordinate of each changed space.
+		 * @param changedY
+		 *            The y-coordinate of each changed space.
+		 * @param changedTiles
+		 *            The tile in each changed space.
+		 * @param nextTile
+		 *            The tile to place next, or null if the game is over.
+		 * @param legalRotations
+		 *            The rotations the next tile fits in each space.
+		 * @param legalSpaces
+		 *            The spaces the next tile fits in after each number of
+		 *            rotations.
+		 */
+		private Update(Model model, int boardSize, boolean placed, int[] changedX, int[] changedY,
+				Tile[] changedTiles, TileType nextTile, byte[] legalRotations, int[][] legalSpaces) {
+			this.placed = placed;
+			this.changedX = changedX;
+			this.changedY = changedY;
+			this.changedTiles = changedTiles;
+			this.turn = model.getTurn();
+			this.redScore = model.getRedScore();
+			this.blueScore = model.getBlueScore();
+			this.gameOver = model.isGameOver();
+			Model.Turn winner = null;
+			if (gameOver) {
+				try {
+					winner = model.getWinner();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+			this.winner = winner;
+			this.nextTile = nextTile;
+			this.legalRotations = legalRotations;
+			this.legalSpaces = legalSpaces;
+			this.boardSize = boardSize;
+		}
+
+		/**
+		 * Gets whether the move was made. A move isn't made if the tile
+		 * doesn't fit, in which case nothing changes.
+		 *
+		 * @return Whether the move was made.
+		 */
+		public boolean isPlaced() {
+			return placed;
+		}
+
+		/**
+		 * Gets the number of spaces whose tiles changed.
+		 *
+		 * @return The number of changed spaces.
+		 */
+		public int getChangeCount() {
+			return changedTiles.length;
+		}
+
+		/**
+		 * Gets the x-coordinate of a changed space.
+		 *
+		 * @param i
+		 *            The index of the change, from 0 to getChangeCount() - 1.
+		 * @return The x-coordinate of the space.
+		 */
+		public int getChangedX(int i) {
+			return changedX[i];
+		}
+
+		/**
+		 * Gets the y-coordinate of a changed space.
+		 *
+		 * @param i
+		 *            The index of the change, from 0 to getChangeCount() - 1.
+		 * @return The y-coordinate of the space.
+		 */
+		public int getChangedY(int i) {
+			return changedY[i];
+		}
+
+		/**
+		 * Gets the tile in a changed space.
+		 *
+		 * @param i
+		 *            The index of the change, from 0 to getChangeCount() - 1.
+		 * @return The tile, which must not be changed.
+		 */
+		public Tile getChangedTile(int i) {
+			return changedTiles[i];
+		}
+
+		/**
+		 * Gets the player whose turn it is.
+		 *
+		 * @return The player whose turn it is.
+		 */
+		public Model.Turn getTurn() {
+			return turn;
+		}
+
+		/**
+		 * Gets red's score.
+		 *
+		 * @return Red's score.
+		 */
+		public int getRedScore() {
+			return redScore;
+		}
+
+		/**
+		 * Gets blue's score.
+		 *
+		 * @return Blue's score.
+		 */
+		public int getBlueScore() {
+			return blueScore;
+		}
+
+		/**
+		 * Gets whether the game is over.
+		 *
+		 * @return Whether the game is over.
+		 */
+		public boolean isGameOver() {
+			return gameOver;
+		}
+
+		/**
+		 * Gets the winner of the game.
+		 *
+		 * @return The winner, or null if the game is a draw or isn't over.
+		 */
+		public Model.Turn getWinner() {
+			return winner;
+		}
+
+		/**
+		 * Gets the tile to place next.
+		 *
+		 * @return The tile, in the rotation it was drawn in, or null if the
+		 *         game is over.
+		 */
+		public TileType getNextTile() {
+			return nextTile;
+		}
+
+		/**
+		 * Checks whether the next tile fits in a space after rotating it.
+		 *
+		 * @param x
+		 *            The x-coordinate of the space.
+		 * @param y
+		 *            The y-coordinate of the space.
+		 * @param rotations
+		 *            The number of times the tile is rotated clockwise, from 0
+		 *            to 3.
+		 * @return Whether the rotated tile can be placed in the space.
+		 */
+		public boolean isLegal(int x, int y, int rotations) {
+			if (nextTile == null || x < 0 || y < 0 || x >= boardSize || y >= boardSize) {
+				return false;
+			}
+			return (legalRotations[x + y * boardSize] & (1 << rotations)) != 0;
+		}
+
+		/**
+		 * Gets the number of spaces the next tile fits in after rotating it.
+		 *
+		 * @param rotations
+		 *            The number of times the tile is rotated clockwise, from 0
+		 *            to 3.
+		 * @return The number of spaces, or 0 if the game is over.
+		 */
+		public int getLegalSpaceCount(int rotations) {
+			return nextTile == null ? 0 : legalSpaces[rotations].length;
+		}
+
+		/**
+		 * Gets the x-coordinate of a space the next tile fits in after
+		 * rotating it.
+		 *
+		 * @param rotations
+		 *            The number of times the tile is rotated clockwise, from 0
+		 *            to 3.
+		 * @param i
+		 *            The index of the space, from 0 to
+		 *            getLegalSpaceCount(rotations) - 1.
+		 * @return The x-coordinate of the space.
+		 */
+		public int getLegalX(int rotations, int i) {
+			return legalSpaces[rotations][i] % boardSize;
+		}
+
+		/**
+		 * Gets the y-coordinate of a space the next tile fits in after
+		 * rotating it.
+		 *
+		 * @param rotations
+		 *            The number of times the tile is rotated clockwise, from 0
+		 *            to 3.
+		 * @param i
+		 *            The index of the space, from 0 to
+		 *            getLegalSpaceCount(rotations) - 1.
+		 * @return The y-coordinate of the space.
+		 */
+		public int getLegalY(int rotations, int i) {
+			return legalSpaces[rotations][i] / boardSize;
+		}
+
+	}
+
+	/**
+	 * The model of the game. Only touched by the worker thread.
+	 */
+	private final Model model;
+
+	/**
+	 * The width and height of the game board.
+	 */
+	private final int boardSize;
+
+	/**
+	 * The tile sent as the next tile in the last update, or null if the game
+	 * is over. Only touched by the worker thread.
+	 */
+	private TileType lastTile;
+
+	/**
+	 * The list the legal placements of the next tile are found in. Only
+	 * touched by the worker thread.
+	 */
+	private final LegalPlacements placements = new LegalPlacements();
+
+	/**
+	 * The width and height of a space on the board, in pixels, for drawing
+	 * the images of placed tiles ahead of time.
+	 */
+	private final int tileSize;
+
+	/**
+	 * The width and height of the next tile's image, in pixels.
+	 */
+	private final int nextTileSize;
+
+	/**
+	 * The listener to notify of every move.
+	 */
+	private final Listener listener;
+
+	/**
+	 * The thread that plays the game.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Constructs a new GameWorker and starts a game on it. The listener is
+	 * sent the starting position as soon as it is ready.
+	 *
+	 * @param boardSize
+	 *            The width and height of the game board.
+	 * @param tileSize
+	 *            The width and height of a space on the board, in pixels.
+	 * @param nextTileSize
+	 *            The width and height of the next tile's image, in pixels.
+	 * @param listener
+	 *            The listener to notify of every move.
+	 */
+	public GameWorker(int boardSize, int tileSize, int nextTileSize, Listener listener) {
+		// A compact model copies a tile whenever it is read, which is just
+		// what the updates need.
+		this.model = new Model(boardSize, true);
+		this.boardSize = boardSize;
+		this.tileSize = tileSize;
+		this.nextTileSize = nextTileSize;
+		this.listener = listener;
+		this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				// Don't keep the program running after the window closes.
+				Thread thread = new Thread(r, "GameWorker");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				start();
+			}
+		});
+	}
+
+	/**
+	 * Places a tile. The listener is sent the result once it is ready, and is
+	 * sent an update that isn't placed if the tile doesn't fit.
+	 *
+	 * @param x
+	 *            The x-coordinate at which to place the tile.
+	 * @param y
+	 *            The y-coordinate at which to place the tile.
+	 * @param tile
+	 *            The tile to place, in the rotation to place it in.
+	 */
+	public void placeTile(final int x, final int y, final TileType tile) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				place(x, y, tile);
+			}
+		});
+	}
+
+	/**
+	 * Starts a hint search in a copy of the game as it is once every move
+	 * sent so far has been made. Only the copy is made on the worker; the
+	 * search runs on the engine's own threads.
+	 *
+	 * @param engine
+	 *            The engine to search with.
+	 * @param id
+	 *            The number of the search, from engine.newSearch().
+	 * @param tile
+	 *            The tile to find a placement for, in its current rotation.
+	 * @param searchMillis
+	 *            How long to search for, in milliseconds.
+	 * @see HintEngine#search(int, Model, TileType, long)
+	 */
+	public void findHint(final HintEngine engine, final int id, final TileType tile, final long searchMillis) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				engine.search(id, model.compactCopy(), tile, searchMillis);
+			}
+		});
+	}
+
+	/**
+	 * Stops the worker. Moves that haven't finished are dropped, and the
+	 * listener isn't notified again.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Sends the starting position to the listener, with every tile already
+	 * on the board as a change. Runs on the worker thread.
+	 */
+	private void start() {
+		int count = 0;
+		int[] xs = new int[model.getTilesPlaced()];
+		int[] ys = new int[xs.length];
+		Tile[] tiles = new Tile[xs.length];
+		for (int y = 0; y < boardSize; y++) {
+			for (int x = 0; x < boardSize; x++) {
+				if (model.getTileType(x, y) != null) {
+					xs[count] = x;
+					ys[count] = y;
+					tiles[count] = model.getTile(x, y);
+					count++;
+				}
+			}
+		}
+		publish(true, xs, ys, tiles);
+	}
+
+	/**
+	 * Places a tile and sends the result to the listener. Runs on the worker
+	 * thread.
+	 *
+	 * @param x
+	 *            The x-coordinate at which to place the tile.
+	 * @param y
+	 *            The y-coordinate at which to place the tile.
+	 * @param tile
+	 *            The tile to place.
+	 */
+	private void place(int x, int y, TileType tile) {
+		if (model.isGameOver() || !model.isMoveValid(x, y, tile)) {
+			publish(false, new int[0], new int[0], new Tile[0]);
+			return;
+		}
+
+		PlacementResult result = model.placeTile(x, y, tile);
+		int[] xs = new int[result.getChangeCount()];
+		int[] ys = new int[xs.length];
+		Tile[] tiles = new Tile[xs.length];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = result.getChangedX(i);
+			ys[i] = result.getChangedY(i);
+			tiles[i] = model.getTile(xs[i], ys[i]);
+		}
+		publish(true, xs, ys, tiles);
+	}
+
+	/**
+	 * Draws the next tile, finds where it fits, draws the images the GUI will
+	 * show, and sends the update to the listener on the event dispatch thread.
+	 * If the move wasn't made, the next tile stays the same.
+	 *
+	 * @param placed
+	 *            Whether the move was made.
+	 * @param xs
+	 *            The x-coordinate of each changed space.
+	 * @param ys
+	 *            The y-coordinate of each changed space.
+	 * @param tiles
+	 *            The tile in each changed space.
+	 */
+	private void publish(boolean placed, int[] xs, int[] ys, Tile[] tiles) {
+		TileType nextTile = null;
+		byte[] legalRotations = null;
+		int[][] legalSpaces = null;
+		if (!model.isGameOver()) {
+			nextTile = placed ? model.randomLegalType() : lastTile;
+			legalRotations = new byte[boardSize * boardSize];
+			model.legalPlacements(nextTile.getCode(), false, placements);
+
+			// One pass finds every rotation, so the spaces to highlight for
+			// each rotation are split out here rather than on the event
+			// dispatch thread whenever the tile is turned.
+			int[] counts = new int[4];
+			for (int i = 0; i < placements.size(); i++) {
+				legalRotations[placements.getX(i) + placements.getY(i) * boardSize] |= 1 << placements.getRotations(i);
+				counts[placements.getRotations(i)]++;
+			}
+			legalSpaces = new int[4][];
+			for (int r = 0; r < 4; r++) {
+				legalSpaces[r] = new int[counts[r]];
+				counts[r] = 0;
+			}
+			for (int i = 0; i < placements.size(); i++) {
+				int r = placements.getRotations(i);
+				legalSpaces[r][counts[r]++] = placements.getX(i) + placements.getY(i) * boardSize;
+			}
+		}
+		lastTile = nextTile;
+
+		// A new game has replaced this worker, so nobody will see the update.
+		if (executor.isShutdown()) {
+			return;
+		}
+
+		try {
+			for (int i = 0; i < tiles.length; i++) {
+				TileImageButton.imageForTile(tiles[i], tileSize, tileSize);
+			}
+			if (nextTile != null) {
+				for (int r = 0; r < 4; r++) {
+					TileImageButton.imageForTile(nextTile.rotate(r).toTile(), nextTileSize, nextTileSize);
+				}
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+		final Update update = new Update(model, boardSize, placed, xs, ys, tiles, nextTile, legalRotations,
+				legalSpaces);
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				// A new game may have replaced this worker in the meantime.
+				if (!executor.isShutdown()) {
+					listener.gameUpdated(update);
+				}
+			}
+		});
+	}
+
+}
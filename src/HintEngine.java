@@ -0,0 +1,626 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Finds hints for the {@linkplain GUI}: the best placement of the next tile,
+ * searched in the background for as long as a time budget allows. Each
+ * placement is valued by the score it leads to and by the tiles in each
+ * player's unfinished roads and cities, which may still score, searching
+ * expectimax one placement deeper at a time. The placements of each depth are
+ * split between the threads of a fork-join pool, each with its own compact
+ * copy of the game.
+ * <p>
+ * Answers are sent to a listener on the event dispatch thread as soon as they
+ * improve: every better placement found by the first depth, then the best
+ * placement of each deeper search that finishes. A search stops at its
+ * deadline, when the game is solved, or as soon as it is cancelled, and the
+ * answers of a cancelled search are never sent.
+ *
+ * @author Ben Visness
+ *
+ */
+public class HintEngine {
+
+	/**
+	 * How much each tile in a player's unfinished features is worth, compared
+	 * to a point already scored, when the search stops before the end of the
+	 * game.
+	 */
+	private static final double UNFINISHED_WEIGHT = 1.0;
+
+	/**
+	 * The most placements of the tile that one fork-join task evaluates. Each
+	 * task copies the game, so a task should have enough placements to be
+	 * worth the copy.
+	 */
+	private static final int GRAIN = 8;
+
+	/**
+	 * This interface defines an observer for the hints found by a
+	 * {@linkplain HintEngine}.
+	 *
+	 * @author Ben Visness
+	 *
+	 */
+	public interface Listener {
+
+		/**
+		 * Performs actions when a search finds a better hint, or stops. Called
+		 * on the event dispatch thread, and never for a cancelled search.
+		 *
+		 * @param hint
+		 *            The best hint the search has found so far.
+		 */
+		public void hintFound(Hint hint);
+
+	}
+
+	/**
+	 * The best placement a search has found so far.
+	 *
+	 * @author Ben Visness
+	 *
+	 */
+	public static class Hint {
+
+		/**
+		 * The number of the search that found the hint.
+		 */
+		private final int id;
+
+		/**
+		 * The placement, rotated from the tile the search was given.
+		 */
+		private final Placement placement;
+
+		/**
+		 * The value of the placement for the player to move.
+		 */
+		private final double value;
+
+		/**
+		 * The number of placements the search looked ahead.
+		 */
+		private final int depth;
+
+		/**
+		 * Whether the search has stopped.
+		 */
+		private final boolean finished;
+
+		/**
+		 * Constructs a new Hint.
+		 *
+		 * @param id
+		 *            The number of the search that found the hint.
+		 * @param placement
+		 *            The placement.
+		 * @param value
+		 *            The value of the placement for the player to move.
+		 * @param depth
+		 *            The number of placements the search looked ahead.
+		 * @param finished
+		 *            Whether the search has stopped.
+		 */
+		private Hint(int id, Placement placement, double value, int depth, boolean finished) {
+			this.id = id;
+			this.placement = placement;
+			this.value = value;
+			this.depth = depth;
+			this.finished = finished;
+		}
+
+		/**
+		 * Gets the number of the search that found the hint.
+		 *
+		 * @return The number returned by newSearch().
+		 * @see HintEngine#newSearch()
+		 */
+		public int getId() {
+			return id;
+		}
+
+		/**
+		 * Gets the placement. Its rotations are counted from the tile the
+		 * search was given.
+		 *
+		 * @return The best placement found.
+		 */
+		public Placement getPlacement() {
+			return placement;
+		}
+
+		/**
+		 * Gets the value of the placement for the player to move: the expected
+		 * difference between their score and their opponent's, counting
+		 * unfinished features, as far ahead as the search looked.
+		 *
+		 * @return The value of the placement.
+		 */
+		public double getValue() {
+			return value;
+		}
+
+		/**
+		 * Gets how many placements ahead the search looked, counting the
+		 * placement itself.
+		 *
+		 * @return The depth of the search.
+		 */
+		public int getDepth() {
+			return depth;
+		}
+
+		/**
+		 * Gets whether the search has stopped, so no better hint will follow.
+		 *
+		 * @return Whether the search has stopped.
+		 */
+		public boolean isFinished() {
+			return finished;
+		}
+
+		/**
+		 * Returns a string representation of the hint.
+		 */
+		public String toString() {
+			return placement + " worth " + value + " at depth " + depth + (finished ? " (finished)" : "");
+		}
+
+	}
+
+	/**
+	 * The threads that search.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * The listener to send hints to.
+	 */
+	private final Listener listener;
+
+	/**
+	 * The number of the newest search. Every other search has been cancelled,
+	 * and checks this to know when to stop.
+	 */
+	private final AtomicInteger current = new AtomicInteger();
+
+	/**
+	 * Constructs a new HintEngine that searches with one thread per
+	 * processor.
+	 *
+	 * @param listener
+	 *            The listener to send hints to.
+	 */
+	public HintEngine(Listener listener) {
+		// The pool's threads are daemons, so an idle engine doesn't keep the
+		// program running.
+		this.pool = new ForkJoinPool();
+		this.listener = listener;
+	}
+
+	/**
+	 * Cancels any search in progress and reserves a number for a new one. The
+	 * search is started with search() once there is a copy of the game to
+	 * search in, which may be on another thread.
+	 *
+	 * @return The number of the new search.
+	 * @see HintEngine#search(int, Model, TileType, long)
+	 */
+	public int newSearch() {
+		return current.incrementAndGet();
+	}
+
+	/**
+	 * Cancels any search in progress, including one that has been reserved
+	 * but not started. The search stops as soon as its threads notice, and
+	 * none of its hints are sent afterward.
+	 */
+	public void cancel() {
+		current.incrementAndGet();
+	}
+
+	/**
+	 * Starts a search and returns immediately. Nothing is searched if the
+	 * search was cancelled before it started. Can be called from any thread.
+	 *
+	 * @param id
+	 *            The number of the search, from newSearch().
+	 * @param model
+	 *            A compact copy of the game. The search reads it from many
+	 *            threads, so nothing else may use it afterward.
+	 * @param tile
+	 *            The tile to place, which can legally be placed somewhere.
+	 * @param searchMillis
+	 *            How long to search for, in milliseconds. Every placement is
+	 *            looked at at least once, however long that takes.
+	 * @see Model#compactCopy()
+	 */
+	public void search(int id, Model model, TileType tile, long searchMillis) {
+		if (id == current.get()) {
+			pool.execute(new Search(id, model, tile.getCode(), System.nanoTime() + searchMillis * 1000000L));
+		}
+	}
+
+	/**
+	 * Cancels any search in progress and stops the engine's threads.
+	 */
+	public void shutdown() {
+		cancel();
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Sends a hint to the listener on the event dispatch thread, unless its
+	 * search has been cancelled by then.
+	 *
+	 * @param hint
+	 *            The hint to send.
+	 */
+	private void publish(final Hint hint) {
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				if (hint.getId() == current.get()) {
+					listener.hintFound(hint);
+				}
+			}
+		});
+	}
+
+	/**
+	 * One hint search, deepening one placement at a time.
+	 *
+	 * @author Ben Visness
+	 *
+	 */
+	private class Search implements Runnable {
+
+		/**
+		 * The number of this search.
+		 */
+		private final int id;
+
+		/**
+		 * The game to search. Only read, so every task can copy it.
+		 */
+		private final Model model;
+
+		/**
+		 * The code of the tile to place.
+		 */
+		private final int tileCode;
+
+		/**
+		 * When to stop searching, in System.nanoTime() units.
+		 */
+		private final long deadline;
+
+		/**
+		 * The distinct legal placements of the tile.
+		 */
+		private final LegalPlacements placements = new LegalPlacements();
+
+		/**
+		 * The value of each placement at the current depth.
+		 */
+		private double[] values;
+
+		/**
+		 * Whether each placement has been valued at the current depth.
+		 */
+		private boolean[] valued;
+
+		/**
+		 * Whether any line of the current depth stopped before the end of the
+		 * game. If none did, the values are exact.
+		 */
+		private volatile boolean cutoff;
+
+		/**
+		 * The placement sent in the last hint, or -1 if none has been sent.
+		 * Guarded by this search's lock.
+		 */
+		private int bestIndex = -1;
+
+		/**
+		 * The value of bestIndex. Guarded by this search's lock.
+		 */
+		private double bestValue;
+
+		/**
+		 * The depth of the last hint sent. Guarded by this search's lock.
+		 */
+		private int bestDepth;
+
+		/**
+		 * Constructs a new Search.
+		 *
+		 * @param id
+		 *            The number of the search.
+		 * @param model
+		 *            The game to search.
+		 * @param tileCode
+		 *            The code of the tile to place.
+		 * @param deadline
+		 *            When to stop searching, in System.nanoTime() units.
+		 */
+		private Search(int id, Model model, int tileCode, long deadline) {
+			this.id = id;
+			this.model = model;
+			this.tileCode = tileCode;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Implements run from Runnable. Searches one placement deeper at a
+		 * time until the deadline, until the search is cancelled, or until
+		 * every line reaches the end of the game.
+		 */
+		@Override
+		public void run() {
+			int count = model.legalPlacements(tileCode, true, placements);
+			if (count == 0) {
+				return;
+			}
+
+			for (int depth = 1; !isCancelled(); depth++) {
+				values = new double[count];
+				valued = new boolean[count];
+				cutoff = false;
+				new Evaluate(0, count, depth).invoke();
+
+				boolean complete = true;
+				for (int i = 0; i < count; i++) {
+					complete &= valued[i];
+				}
+				if (!complete) {
+					break;
+				}
+				int best = 0;
+				for (int i = 1; i < count; i++) {
+					if (values[i] > values[best]) {
+						best = i;
+					}
+				}
+				boolean stopping = !cutoff || System.nanoTime() > deadline;
+				offer(best, values[best], depth, stopping, true);
+				if (stopping) {
+					return;
+				}
+			}
+			finish();
+		}
+
+		/**
+		 * Records a placement as the best one if it is better than the last
+		 * hint, or comes from a deeper search that finished, and sends it.
+		 *
+		 * @param index
+		 *            The index of the placement.
+		 * @param value
+		 *            The value of the placement.
+		 * @param depth
+		 *            The depth the placement was valued at.
+		 * @param finished
+		 *            Whether the search has stopped.
+		 * @param replace
+		 *            Whether a finished depth replaces the last hint even if
+		 *            it values the placement lower.
+		 */
+		private synchronized void offer(int index, double value, int depth, boolean finished, boolean replace) {
+			boolean better = bestIndex < 0 || value > bestValue || (value == bestValue && index < bestIndex);
+			if (!replace && !better) {
+				return;
+			}
+			bestIndex = index;
+			bestValue = value;
+			bestDepth = depth;
+			publish(new Hint(id, placements.get(index), value, depth, finished));
+		}
+
+		/**
+		 * Sends the last hint again, marked as finished, once the search has
+		 * stopped.
+		 */
+		private synchronized void finish() {
+			if (bestIndex >= 0 && !isCancelled()) {
+				publish(new Hint(id, placements.get(bestIndex), bestValue, bestDepth, true));
+			}
+		}
+
+		/**
+		 * Checks whether a newer search has replaced this one.
+		 *
+		 * @return Whether this search has been cancelled.
+		 */
+		private boolean isCancelled() {
+			return current.get() != id;
+		}
+
+		/**
+		 * Values a range of the tile's placements at one depth, splitting the
+		 * range between threads.
+		 *
+		 * @author Ben Visness
+		 *
+		 */
+		@SuppressWarnings("serial")
+		private class Evaluate extends RecursiveAction {
+
+			/**
+			 * The index of the first placement to value.
+			 */
+			private final int from;
+
+			/**
+			 * The index after the last placement to value.
+			 */
+			private final int to;
+
+			/**
+			 * The number of placements to look ahead, counting the tile's.
+			 */
+			private final int depth;
+
+			/**
+			 * The game this task plays in, or null until it starts valuing.
+			 */
+			private Model game;
+
+			/**
+			 * Scratch lists for the legal placements at each ply.
+			 */
+			private LegalPlacements[] lists;
+
+			/**
+			 * Whether this task stopped before it finished.
+			 */
+			private boolean aborted;
+
+			/**
+			 * Constructs a new Evaluate.
+			 *
+			 * @param from
+			 *            The index of the first placement to value.
+			 * @param to
+			 *            The index after the last placement to value.
+			 * @param depth
+			 *            The number of placements to look ahead.
+			 */
+			private Evaluate(int from, int to, int depth) {
+				this.from = from;
+				this.to = to;
+				this.depth = depth;
+			}
+
+			/**
+			 * Implements compute from RecursiveAction. Splits the range in half
+			 * until it is small enough, then values each placement in it.
+			 */
+			@Override
+			protected void compute() {
+				if (to - from > GRAIN) {
+					int middle = (from + to) >>> 1;
+					invokeAll(new Evaluate(from, middle, depth), new Evaluate(middle, to, depth));
+					return;
+				}
+
+				game = model.compactCopy();
+				game.setUndoEnabled(true);
+				lists = new LegalPlacements[depth];
+				TileType tile = TileType.of(tileCode);
+				for (int i = from; i < to; i++) {
+					game.placeTile(placements.getX(i), placements.getY(i), tile.rotate(placements.getRotations(i)));
+					double value = -chance(depth - 1, 1);
+					game.undo();
+					if (aborted) {
+						return;
+					}
+					values[i] = value;
+					valued[i] = true;
+					// The first depth sends every improvement right away, so
+					// there is a hint to show however long the others take.
+					if (depth == 1) {
+						offer(i, value, depth, false, false);
+					}
+				}
+			}
+
+			/**
+			 * Values the position for the player to move, averaged over the
+			 * tiles they could draw.
+			 *
+			 * @param depth
+			 *            The number of placements to look ahead.
+			 * @param ply
+			 *            The number of placements from the tile's.
+			 * @return The expected value for the player to move.
+			 */
+			private double chance(int depth, int ply) {
+				if (shouldStop()) {
+					return 0;
+				}
+				boolean red = game.getTurn() == Model.Turn.RED;
+				int score = red ? game.getRedScore() - game.getBlueScore() : game.getBlueScore() - game.getRedScore();
+				if (game.isGameOver()) {
+					return score;
+				}
+				if (depth == 0) {
+					cutoff = true;
+					int unfinished = game.getUnfinishedTiles(Owner.RED) - game.getUnfinishedTiles(Owner.BLUE);
+					return score + UNFINISHED_WEIGHT * (red ? unfinished : -unfinished);
+				}
+
+				// Weight each shape of tile the same as randomLegalTile.
+				boolean byCode = game.getTileDistribution() == Model.TileDistribution.CODES;
+				int legalShapes = game.getLegalShapes();
+				int weight = 0;
+				for (int shapes = legalShapes; shapes != 0; shapes &= shapes - 1) {
+					weight += byCode ? TileCode.shapeSize(Integer.numberOfTrailingZeros(shapes)) : 1;
+				}
+				double sum = 0;
+				for (int shapes = legalShapes; shapes != 0; shapes &= shapes - 1) {
+					int shape = Integer.numberOfTrailingZeros(shapes);
+					double value = choice(TileCode.shapeCode(shape), depth, ply);
+					if (aborted) {
+						return 0;
+					}
+					sum += (byCode ? TileCode.shapeSize(shape) : 1) * value;
+				}
+				return sum / weight;
+			}
+
+			/**
+			 * Values the best placement of a known tile for the player to
+			 * move.
+			 *
+			 * @param code
+			 *            The code of the tile.
+			 * @param depth
+			 *            The number of placements to look ahead, at least 1.
+			 * @param ply
+			 *            The number of placements from the tile's.
+			 * @return The value of the best placement.
+			 */
+			private double choice(int code, int depth, int ply) {
+				if (lists[ply] == null) {
+					lists[ply] = new LegalPlacements();
+				}
+				LegalPlacements list = lists[ply];
+				game.legalPlacements(code, true, list);
+				TileType tile = TileType.of(code);
+				double best = Double.NEGATIVE_INFINITY;
+				for (int i = 0; i < list.size(); i++) {
+					game.placeTile(list.getX(i), list.getY(i), tile.rotate(list.getRotations(i)));
+					double value = -chance(depth - 1, ply + 1);
+					game.undo();
+					if (aborted) {
+						return 0;
+					}
+					best = Math.max(best, value);
+				}
+				return best;
+			}
+
+			/**
+			 * Checks whether the search has been cancelled, or has passed its
+			 * deadline after the first depth.
+			 *
+			 * @return Whether this task should stop.
+			 */
+			private boolean shouldStop() {
+				if (!aborted && (isCancelled() || (depth > 1 && System.nanoTime() > deadline))) {
+					aborted = true;
+				}
+				return aborted;
+			}
+
+		}
+
+	}
+
+}
@@ -0,0 +1,162 @@
+import java.util.Arrays;
+
+/**
+ * A list of every legal placement of one tile: an x and y on the board and a
+ * number of clockwise rotations. It is filled in by
+ * {@linkplain Model#legalPlacements(int, boolean, LegalPlacements)} in one pass
+ * over the frontier, and can be reused for every turn, so finding the legal
+ * placements allocates nothing once the list is big enough.
+ *
+ * @author Ben Visness
+ *
+ */
+public class LegalPlacements {
+
+	/**
+	 * The x-coordinate of each placement.
+	 */
+	private int[] xs = new int[64];
+
+	/**
+	 * The y-coordinate of each placement.
+	 */
+	private int[] ys = new int[64];
+
+	/**
+	 * The number of clockwise rotations of each placement.
+	 */
+	private byte[] rotations = new byte[64];
+
+	/**
+	 * The number of placements in the list.
+	 */
+	private int count;
+
+	/**
+	 * The number of spaces that the tile fits in some rotation.
+	 */
+	private int spaceCount;
+
+	/**
+	 * Empties the list.
+	 */
+	void clear() {
+		count = 0;
+		spaceCount = 0;
+	}
+
+	/**
+	 * Adds the placements of the tile in one space.
+	 *
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 * @param rotationMask
+	 *            A mask with bit r set if the tile fits after rotating it
+	 *            clockwise r times.
+	 */
+	void addSpace(int x, int y, int rotationMask) {
+		if (count + 4 > xs.length) {
+			xs = Arrays.copyOf(xs, 2 * xs.length);
+			ys = Arrays.copyOf(ys, 2 * ys.length);
+			rotations = Arrays.copyOf(rotations, 2 * rotations.length);
+		}
+		for (int r = 0; r < 4; r++) {
+			if ((rotationMask & (1 << r)) != 0) {
+				xs[count] = x;
+				ys[count] = y;
+				rotations[count] = (byte) r;
+				count++;
+			}
+		}
+		spaceCount++;
+	}
+
+	/**
+	 * Gets the number of placements in the list.
+	 *
+	 * @return The number of placements.
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Checks whether the list is empty, meaning the tile can't be placed
+	 * anywhere.
+	 *
+	 * @return Whether the list is empty.
+	 */
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * Gets the number of distinct spaces the placements are in.
+	 *
+	 * @return The number of spaces.
+	 */
+	public int getSpaceCount() {
+		return spaceCount;
+	}
+
+	/**
+	 * Gets the x-coordinate of a placement.
+	 *
+	 * @param i
+	 *            The index of the placement, from 0 to size() - 1.
+	 * @return The x-coordinate.
+	 */
+	public int getX(int i) {
+		return xs[i];
+	}
+
+	/**
+	 * Gets the y-coordinate of a placement.
+	 *
+	 * @param i
+	 *            The index of the placement, from 0 to size() - 1.
+	 * @return The y-coordinate.
+	 */
+	public int getY(int i) {
+		return ys[i];
+	}
+
+	/**
+	 * Gets the number of clockwise rotations of a placement.
+	 *
+	 * @param i
+	 *            The index of the placement, from 0 to size() - 1.
+	 * @return The number of rotations, from 0 to 3.
+	 */
+	public int getRotations(int i) {
+		return rotations[i];
+	}
+
+	/**
+	 * Gets a placement as a {@linkplain Placement} object.
+	 *
+	 * @param i
+	 *            The index of the placement, from 0 to size() - 1.
+	 * @return A new Placement.
+	 */
+	public Placement get(int i) {
+		return new Placement(xs[i], ys[i], rotations[i]);
+	}
+
+	/**
+	 * Returns a string representation of the list.
+	 */
+	public String toString() {
+		StringBuilder result = new StringBuilder("[");
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				result.append(", ");
+			}
+			result.append(get(i));
+		}
+		return result.append("]").toString();
+	}
+
+}
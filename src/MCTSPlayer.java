@@ -0,0 +1,583 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A computer player that chooses placements with Monte Carlo tree search.
+ * Each decision in the tree is a placement (space and rotation) of a known
+ * tile, and the tile drawn after it is a chance outcome, sampled the same way
+ * the game draws tiles. Leaves are scored by playing the game out at random.
+ * <p>
+ * The search uses root parallelization: every thread searches its own tree on
+ * its own compact copy of the game, so the threads never share anything
+ * while they work, and their visit counts for the first placement are added
+ * up at the end. Each copy makes and undoes moves with
+ * {@linkplain Model#undo()} rather than copying the board for every playout.
+ *
+ * @author Ben Visness
+ *
+ */
+public class MCTSPlayer implements Player {
+
+	/**
+	 * The exploration constant of the UCT formula, for rewards from 0 to 1.
+	 */
+	private static final double EXPLORATION = 0.7;
+
+	/**
+	 * The width and height of the boards this player plays on.
+	 */
+	private final int boardSize;
+
+	/**
+	 * How long to search for each move, in nanoseconds.
+	 */
+	private final long moveNanos;
+
+	/**
+	 * The number of threads that search each move.
+	 */
+	private final int threads;
+
+	/**
+	 * The threads that help the calling thread search, or null if the calling
+	 * thread searches alone.
+	 */
+	private final ExecutorService pool;
+
+	/**
+	 * The number of playouts made by every search so far.
+	 */
+	private final AtomicLong playouts = new AtomicLong();
+
+	/**
+	 * The wall-clock time spent in every search so far, in nanoseconds.
+	 */
+	private final AtomicLong searchNanos = new AtomicLong();
+
+	/**
+	 * Constructs a new MCTSPlayer.
+	 *
+	 * @param boardSize
+	 *            The width and height of the boards this player plays on.
+	 * @param moveMillis
+	 *            How long to search for each move, in milliseconds.
+	 * @param threads
+	 *            The number of threads that search each move, including the
+	 *            thread that asks for the move.
+	 */
+	public MCTSPlayer(int boardSize, long moveMillis, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException(threads + ": a search needs at least one thread.");
+		}
+		this.boardSize = boardSize;
+		this.moveNanos = moveMillis * 1000000L;
+		this.threads = threads;
+		if (threads > 1) {
+			pool = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					// Don't keep the program running just for an idle player.
+					Thread thread = new Thread(r, "MCTSPlayer search");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		} else {
+			pool = null;
+		}
+	}
+
+	/**
+	 * Implements choosePlacement from Player. Searches until the time budget
+	 * runs out, and chooses the placement that was visited the most.
+	 */
+	@Override
+	public Placement choosePlacement(Model model, TileType tile) {
+		long start = System.nanoTime();
+		long deadline = start + moveNanos;
+		int code = tile.getCode();
+
+		List<Future<Search>> helpers = new ArrayList<Future<Search>>();
+		for (int i = 1; i < threads; i++) {
+			helpers.add(pool.submit(new Search(model.compactCopy(), code, deadline)));
+		}
+		List<Search> searches = new ArrayList<Search>();
+		searches.add(new Search(model.compactCopy(), code, deadline).call());
+		try {
+			for (Future<Search> helper : helpers) {
+				searches.add(helper.get());
+			}
+		} catch (InterruptedException e) {
+			// Answer with what has been searched so far.
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A search thread failed", e.getCause());
+		}
+
+		// Add up the visits to each first placement over all the trees.
+		Map<Integer, double[]> totals = new LinkedHashMap<Integer, double[]>();
+		long searchPlayouts = 0;
+		for (Search search : searches) {
+			Node root = search.root;
+			for (int i = 0; i < root.moves.length; i++) {
+				double[] total = totals.get(root.moves[i]);
+				if (total == null) {
+					total = new double[2];
+					totals.put(root.moves[i], total);
+				}
+				total[0] += root.visits[i];
+				total[1] += root.rewards[i];
+			}
+			searchPlayouts += search.playouts;
+		}
+
+		int best = -1;
+		double[] bestTotal = null;
+		for (Map.Entry<Integer, double[]> entry : totals.entrySet()) {
+			double[] total = entry.getValue();
+			if (bestTotal == null || total[0] > bestTotal[0]
+					|| (total[0] == bestTotal[0] && total[1] > bestTotal[1])) {
+				best = entry.getKey();
+				bestTotal = total;
+			}
+		}
+
+		playouts.addAndGet(searchPlayouts);
+		searchNanos.addAndGet(System.nanoTime() - start);
+		return new Placement(moveX(best), moveY(best), moveRotations(best));
+	}
+
+	/**
+	 * Gets the number of playouts made by every search so far.
+	 *
+	 * @return The number of playouts.
+	 */
+	public long getPlayouts() {
+		return playouts.get();
+	}
+
+	/**
+	 * Gets the wall-clock time spent searching so far.
+	 *
+	 * @return The search time, in nanoseconds.
+	 */
+	public long getSearchNanos() {
+		return searchNanos.get();
+	}
+
+	/**
+	 * Gets the number of playouts made per second of searching, over all
+	 * threads. Use this to decide how many threads and how much time a game
+	 * needs.
+	 *
+	 * @return The number of playouts per second, or 0 if there has been no
+	 *         search yet.
+	 */
+	public double getPlayoutsPerSecond() {
+		long nanos = searchNanos.get();
+		return nanos == 0 ? 0 : playouts.get() * 1e9 / nanos;
+	}
+
+	/**
+	 * Sets the playout count and search time back to zero.
+	 */
+	public void resetStatistics() {
+		playouts.set(0);
+		searchNanos.set(0);
+	}
+
+	/**
+	 * Packs a placement into an int.
+	 *
+	 * @param x
+	 *            The x-coordinate of the placement.
+	 * @param y
+	 *            The y-coordinate of the placement.
+	 * @param rotations
+	 *            The number of clockwise rotations, from 0 to 3.
+	 * @return The packed placement.
+	 */
+	private int move(int x, int y, int rotations) {
+		return ((y * boardSize + x) << 2) | rotations;
+	}
+
+	/**
+	 * Gets the x-coordinate of a packed placement.
+	 *
+	 * @param move
+	 *            The packed placement.
+	 * @return The x-coordinate.
+	 */
+	private int moveX(int move) {
+		return (move >>> 2) % boardSize;
+	}
+
+	/**
+	 * Gets the y-coordinate of a packed placement.
+	 *
+	 * @param move
+	 *            The packed placement.
+	 * @return The y-coordinate.
+	 */
+	private int moveY(int move) {
+		return (move >>> 2) / boardSize;
+	}
+
+	/**
+	 * Gets the number of clockwise rotations of a packed placement.
+	 *
+	 * @param move
+	 *            The packed placement.
+	 * @return The number of rotations, from 0 to 3.
+	 */
+	private static int moveRotations(int move) {
+		return move & 3;
+	}
+
+	/**
+	 * A decision in the search tree: the placements of one tile in one game
+	 * state. The statistics of each placement are kept for the player who
+	 * makes it.
+	 *
+	 * @author Ben Visness
+	 *
+	 */
+	private static class Node {
+
+		/**
+		 * The {@linkplain TileCode} of the tile to place.
+		 */
+		private final int code;
+
+		/**
+		 * The player placing the tile.
+		 */
+		private final Model.Turn player;
+
+		/**
+		 * The legal placements of the tile, packed. The first expanded
+		 * placements have been tried; the rest are in no particular order.
+		 */
+		private final int[] moves;
+
+		/**
+		 * The number of times each placement has been tried.
+		 */
+		private final int[] visits;
+
+		/**
+		 * The sum of the rewards for the player from each placement.
+		 */
+		private final double[] rewards;
+
+		/**
+		 * For each placement, the first of the nodes for the tiles drawn after
+		 * it.
+		 */
+		private final Node[] outcomes;
+
+		/**
+		 * The next node for a different tile drawn after the same placement.
+		 */
+		private Node sibling;
+
+		/**
+		 * The number of placements that have been tried.
+		 */
+		private int expanded;
+
+		/**
+		 * The number of times this node has been visited.
+		 */
+		private int totalVisits;
+
+		/**
+		 * Constructs a new Node with no visits.
+		 *
+		 * @param code
+		 *            The code of the tile to place.
+		 * @param player
+		 *            The player placing the tile.
+		 * @param moves
+		 *            The legal placements of the tile.
+		 */
+		private Node(int code, Model.Turn player, int[] moves) {
+			this.code = code;
+			this.player = player;
+			this.moves = moves;
+			visits = new int[moves.length];
+			rewards = new double[moves.length];
+			outcomes = new Node[moves.length];
+		}
+
+		/**
+		 * Chooses the placement to try next: a random untried placement if
+		 * there is one, or else the one with the best UCT value.
+		 *
+		 * @param random
+		 *            The random number generator to use.
+		 * @return The index of the placement.
+		 */
+		private int select(ThreadLocalRandom random) {
+			if (expanded < moves.length) {
+				int pick = expanded + random.nextInt(moves.length - expanded);
+				int move = moves[pick];
+				moves[pick] = moves[expanded];
+				moves[expanded] = move;
+				return expanded++;
+			}
+
+			double logVisits = Math.log(totalVisits);
+			int best = 0;
+			double bestValue = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < moves.length; i++) {
+				double value = rewards[i] / visits[i] + EXPLORATION * Math.sqrt(logVisits / visits[i]);
+				if (value > bestValue) {
+					best = i;
+					bestValue = value;
+				}
+			}
+			return best;
+		}
+
+		/**
+		 * Finds the node for a tile drawn after a placement.
+		 *
+		 * @param i
+		 *            The index of the placement.
+		 * @param tileCode
+		 *            The code of the drawn tile.
+		 * @return The node, or null if this tile hasn't been drawn after the
+		 *         placement before.
+		 */
+		private Node outcome(int i, int tileCode) {
+			for (Node node = outcomes[i]; node != null; node = node.sibling) {
+				if (node.code == tileCode) {
+					return node;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Adds the node for a newly drawn tile after a placement.
+		 *
+		 * @param i
+		 *            The index of the placement.
+		 * @param node
+		 *            The node to add.
+		 */
+		private void addOutcome(int i, Node node) {
+			node.sibling = outcomes[i];
+			outcomes[i] = node;
+		}
+
+	}
+
+	/**
+	 * One thread's search: a tree, and the copy of the game it plays in.
+	 *
+	 * @author Ben Visness
+	 *
+	 */
+	private class Search implements Callable<Search> {
+
+		/**
+		 * The game being searched. Every playout is undone before the next.
+		 */
+		private final Model model;
+
+		/**
+		 * When to stop searching, in System.nanoTime() units.
+		 */
+		private final long deadline;
+
+		/**
+		 * The root of the tree.
+		 */
+		private final Node root;
+
+		/**
+		 * The nodes on the path of the current playout.
+		 */
+		private Node[] pathNodes = new Node[64];
+
+		/**
+		 * The placement chosen at each node on the path.
+		 */
+		private int[] pathMoves = new int[64];
+
+		/**
+		 * The legal placements found by the last call to legalMoves.
+		 */
+		private int[] buffer = new int[64];
+
+		/**
+		 * Scratch list for finding legal placements.
+		 */
+		private final LegalPlacements placements = new LegalPlacements();
+
+		/**
+		 * The number of playouts made.
+		 */
+		private long playouts;
+
+		/**
+		 * Constructs a new Search.
+		 *
+		 * @param model
+		 *            A compact copy of the game to search. The search plays in
+		 *            it.
+		 * @param code
+		 *            The code of the tile to place.
+		 * @param deadline
+		 *            When to stop searching, in System.nanoTime() units.
+		 */
+		private Search(Model model, int code, long deadline) {
+			this.model = model;
+			this.deadline = deadline;
+			model.setUndoEnabled(true);
+			root = newNode(code);
+		}
+
+		/**
+		 * Implements call from Callable. Makes playouts until the deadline,
+		 * and at least one.
+		 */
+		@Override
+		public Search call() {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			if (root.moves.length == 1) {
+				root.visits[0]++;
+				return this;
+			}
+			do {
+				playout(random);
+				playouts++;
+			} while (System.nanoTime() < deadline);
+			return this;
+		}
+
+		/**
+		 * Makes one playout: follows the tree to an untried placement, plays
+		 * the rest of the game at random, scores it, and undoes it all.
+		 *
+		 * @param random
+		 *            The random number generator to use.
+		 */
+		private void playout(ThreadLocalRandom random) {
+			int depth = 0;
+			int placed = 0;
+			Node node = root;
+			while (true) {
+				int i = node.select(random);
+				boolean untried = node.visits[i] == 0;
+				if (depth == pathNodes.length) {
+					pathNodes = Arrays.copyOf(pathNodes, 2 * depth);
+					pathMoves = Arrays.copyOf(pathMoves, 2 * depth);
+				}
+				pathNodes[depth] = node;
+				pathMoves[depth] = i;
+				depth++;
+				place(node.code, node.moves[i]);
+				placed++;
+				if (untried || model.isGameOver()) {
+					break;
+				}
+
+				int tileCode = model.randomLegalCode();
+				Node next = node.outcome(i, tileCode);
+				if (next == null) {
+					next = newNode(tileCode);
+					node.addOutcome(i, next);
+				}
+				node = next;
+			}
+
+			// Play the rest of the game at random.
+			while (!model.isGameOver()) {
+				int tileCode = model.randomLegalCode();
+				int count = legalMoves(tileCode, false);
+				place(tileCode, buffer[random.nextInt(count)]);
+				placed++;
+			}
+
+			int red = model.getRedScore();
+			int blue = model.getBlueScore();
+			for (int d = 0; d < depth; d++) {
+				Node n = pathNodes[d];
+				int mine = (n.player == Model.Turn.RED) ? red : blue;
+				int theirs = (n.player == Model.Turn.RED) ? blue : red;
+				n.totalVisits++;
+				n.visits[pathMoves[d]]++;
+				n.rewards[pathMoves[d]] += (mine > theirs) ? 1 : (mine == theirs) ? 0.5 : 0;
+			}
+
+			for (int i = 0; i < placed; i++) {
+				model.undo();
+			}
+		}
+
+		/**
+		 * Makes a new node for placing a tile in the current state of the
+		 * model.
+		 *
+		 * @param code
+		 *            The code of the tile to place.
+		 * @return The new node.
+		 */
+		private Node newNode(int code) {
+			int count = legalMoves(code, true);
+			return new Node(code, model.getTurn(), Arrays.copyOf(buffer, count));
+		}
+
+		/**
+		 * Finds every legal placement of a tile and puts them in the buffer.
+		 *
+		 * @param code
+		 *            The code of the tile to place.
+		 * @param distinct
+		 *            Whether to skip rotations that look the same as an earlier
+		 *            rotation.
+		 * @return The number of placements found.
+		 */
+		private int legalMoves(int code, boolean distinct) {
+			int count = model.legalPlacements(code, distinct, placements);
+			if (count > buffer.length) {
+				buffer = new int[Math.max(count, 2 * buffer.length)];
+			}
+			for (int i = 0; i < count; i++) {
+				buffer[i] = move(placements.getX(i), placements.getY(i), placements.getRotations(i));
+			}
+			return count;
+		}
+
+		/**
+		 * Places a tile in the model.
+		 *
+		 * @param code
+		 *            The code of the tile, before it is rotated.
+		 * @param move
+		 *            The packed placement.
+		 */
+		private void place(int code, int move) {
+			for (int r = 0; r < moveRotations(move); r++) {
+				code = TileCode.rotateRight(code);
+			}
+			model.placeTile(moveX(move), moveY(move), TileType.of(code));
+		}
+
+	}
+
+}
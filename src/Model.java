@@ -1,6 +1,8 @@
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Defines a model for the board game Carcassonne.
@@ -11,10 +13,45 @@ import java.util.LinkedList;
 public class Model {
 
 	/**
-	 * The game board for this model. It is indexed by x, then y, from the top
-	 * left.
+	 * The layout of the game board, which gives each space the index used to
+	 * look it up in the packed arrays below.
 	 */
-	private Tile[][] board;
+	private Board board;
+
+	/**
+	 * The packed game board for this model. Each space holds the
+	 * {@linkplain TileCode} of its tile, or TileCode.EMPTY. It is indexed by
+	 * space.
+	 * 
+	 * @see Board
+	 */
+	private byte[] cells;
+
+	/**
+	 * The Tile objects placed on the board, indexed like the packed board. This
+	 * is null for compact models, which only keep the packed board and hand out
+	 * views of it instead.
+	 */
+	private Tile[] tiles;
+
+	/**
+	 * The empty spaces next to placed tiles, where the next tile can go.
+	 */
+	private Frontier frontier;
+
+	/**
+	 * The road features on the game board, indexed by space.
+	 * 
+	 * @see Board
+	 */
+	private FeatureIndex roads;
+
+	/**
+	 * The city features on the game board, indexed by space.
+	 * 
+	 * @see Board
+	 */
+	private FeatureIndex cities;
 
 	/**
 	 * The red player's score.
@@ -31,6 +68,205 @@ public class Model {
 	 */
 	private int tilesPlaced;
 
+	/**
+	 * The number of tiles after which the game is over.
+	 */
+	private int tileLimit;
+
+	/**
+	 * The smallest x-coordinate of the board, or of any tile on an unbounded
+	 * board.
+	 */
+	private int minX;
+
+	/**
+	 * The largest x-coordinate of the board, or of any tile on an unbounded
+	 * board.
+	 */
+	private int maxX;
+
+	/**
+	 * The smallest y-coordinate of the board, or of any tile on an unbounded
+	 * board.
+	 */
+	private int minY;
+
+	/**
+	 * The largest y-coordinate of the board, or of any tile on an unbounded
+	 * board.
+	 */
+	private int maxY;
+
+	/**
+	 * The random number generator that tiles are drawn from, or null to use
+	 * the current thread's.
+	 */
+	private Random random;
+
+	/**
+	 * The x- and y-coordinate of the starting tile, which the symmetries of
+	 * the board turn about.
+	 */
+	private int center;
+
+	/**
+	 * Scratch space for the key of each symmetric image of the position.
+	 * Reused by every call to canonicalKey.
+	 */
+	private final long[] symmetryKeys = new long[Symmetry.COUNT];
+
+	/**
+	 * The change in x-coordinate when moving from a tile to each side, indexed
+	 * by side.
+	 */
+	private static final int[] SIDE_DX = { 0, 1, 0, -1 };
+
+	/**
+	 * The change in y-coordinate when moving from a tile to each side, indexed
+	 * by side.
+	 */
+	private static final int[] SIDE_DY = { -1, 0, 1, 0 };
+
+	/**
+	 * Scratch space for the distinct features next to a newly placed tile.
+	 * Reused by every placement so that placing a tile allocates nothing.
+	 */
+	private final int[] neighborRoots = new int[4];
+
+	/**
+	 * The changes made by the current or most recent placement. Reused by
+	 * every placement.
+	 */
+	private final PlacementResult result = new PlacementResult();
+
+	/**
+	 * The value of placementStamp when each space was last recorded as
+	 * changed, indexed by space. Used to record each space only once per
+	 * placement.
+	 */
+	private int[] changeStamps;
+
+	/**
+	 * A number that is different for every placement, even after an undo.
+	 */
+	private int placementStamp;
+
+	/**
+	 * The journal that placements are recorded in so they can be undone, or
+	 * null if undo is disabled.
+	 */
+	private UndoJournal journal;
+
+	/**
+	 * The journal field for a space of the packed board.
+	 */
+	private static final int CELL = 0;
+
+	/**
+	 * The journal field for a Tile object on the board. Restoring it always
+	 * empties the space, since tiles are only ever added.
+	 */
+	private static final int TILE = 1;
+
+	/**
+	 * The journal field for a space whose quadrant owners were rewritten. The
+	 * owners aren't journaled; they are read back from the feature indexes
+	 * after an undo.
+	 */
+	private static final int QUADRANTS = 2;
+
+	/**
+	 * The journal field for the red player's score.
+	 */
+	private static final int RED_SCORE = 3;
+
+	/**
+	 * The journal field for the blue player's score.
+	 */
+	private static final int BLUE_SCORE = 4;
+
+	/**
+	 * The journal field for the number of tiles placed.
+	 */
+	private static final int TILES_PLACED = 5;
+
+	/**
+	 * The journal field for the ordinal of whose turn it is.
+	 */
+	private static final int TURN = 6;
+
+	/**
+	 * The journal field for the bounds of the placed tiles. The index is 0
+	 * for minX, 1 for maxX, 2 for minY, and 3 for maxY.
+	 */
+	private static final int BOUNDS = 7;
+
+	/**
+	 * The journal field for the position hash. The index is 0 for the low 32
+	 * bits and 1 for the high 32 bits.
+	 */
+	private static final int HASH = 8;
+
+	/**
+	 * The Zobrist hash of the current position.
+	 * 
+	 * @see #positionHash()
+	 */
+	private long positionHash;
+
+	/**
+	 * The Zobrist key that is in the position hash while it is blue's turn.
+	 */
+	private static final long BLUE_TURN_KEY = 0x6A09E667F3BCC909L;
+
+	/**
+	 * The keys of the tile about to be placed, indexed by shape. They are
+	 * drawn from their own seed rather than from {@link #zobristKey}, so they
+	 * can't collide with the key of a tile in any space.
+	 */
+	private static final long[] PENDING_KEYS = new long[TileCode.SHAPE_COUNT];
+
+	static {
+		long seed = 0xBB67AE8584CAA73BL;
+		for (int i = 0; i < PENDING_KEYS.length; i++) {
+			long z = (seed += 0x9E3779B97F4A7C15L);
+			z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+			z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+			PENDING_KEYS[i] = z ^ (z >>> 31);
+		}
+	}
+
+	/**
+	 * The values of Turn, indexed by ordinal.
+	 */
+	private static final Turn[] TURNS = Turn.values();
+
+	/**
+	 * Puts back the fields of this model that the journal recorded.
+	 */
+	private final Undoable journaledFields = new Undoable() {
+		@Override
+		public void restore(int field, int index, int value) {
+			restoreField(field, index, value);
+		}
+	};
+
+	/**
+	 * The spaces whose quadrant owners must be read back after an undo. Only
+	 * the first undoneCount entries are used.
+	 */
+	private int[] undoneCells = new int[16];
+
+	/**
+	 * The number of spaces in undoneCells.
+	 */
+	private int undoneCount;
+
+	/**
+	 * The listeners to notify after each placement.
+	 */
+	private final List<PlacementListener> placementListeners = new ArrayList<PlacementListener>();
+
 	/**
 	 * An enum to describe whose turn it is.
 	 */
@@ -43,6 +279,30 @@ public class Model {
 	 */
 	private Turn turn;
 
+	/**
+	 * An enum to describe how likely each tile that can be placed is to be
+	 * drawn.
+	 */
+	public enum TileDistribution {
+		/**
+		 * Every tile code that can be placed is equally likely, so tiles
+		 * whose rotations all look different come up more often. This is the
+		 * distribution of drawing random quadrants until the tile fits.
+		 */
+		CODES,
+
+		/**
+		 * Every shape of tile that can be placed is equally likely, in a
+		 * random rotation.
+		 */
+		SHAPES
+	};
+
+	/**
+	 * How likely each tile is to be drawn by randomLegalTile.
+	 */
+	private TileDistribution tileDistribution = TileDistribution.CODES;
+
 	/**
 	 * A simple class to hold an xy-coordinate of a tile on the board.
 	 * 
@@ -102,22 +362,45 @@ public class Model {
 	 * @return The {@linkplain Tile} at the given x and y.
 	 */
 	public Tile getTile(int x, int y) {
-		if (!isInBounds(x, y)) {
+		int cell = board.getSpace(x, y);
+		if (cell < 0) {
+			return null;
+		}
+		if (tiles != null) {
+			return tiles[cell];
+		}
+
+		int code = cells[cell] & 0xFF;
+		if (code == TileCode.EMPTY) {
 			return null;
 		}
-		return board[x][y];
+		Tile view = TileCode.toTile(code);
+		if (TileCode.hasType(code, QuadrantType.ROAD)) {
+			setQuadrantOwners(view, QuadrantType.ROAD, roads.getOwner(cell));
+		}
+		if (TileCode.hasType(code, QuadrantType.CITY)) {
+			setQuadrantOwners(view, QuadrantType.CITY, cities.getOwner(cell));
+		}
+		return view;
 	}
 
 	/**
-	 * Gets the {@linkplain Tile} at a given Coordinate on the game board.
+	 * Gets the type of the tile at a given x and y on the game board. Unlike
+	 * getTile, this never allocates, even in a compact model.
 	 * 
-	 * @param c
-	 *            The Coordinate of the tile to get.
-	 * @return The {@linkplain Tile} at the given coordinate.
-	 * @see Coordinate
+	 * @param x
+	 *            The x-value of the tile to get.
+	 * @param y
+	 *            The y-value of the tile to get.
+	 * @return The {@linkplain TileType} at the given x and y, or null if the
+	 *         space is empty.
 	 */
-	private Tile getTile(Coordinate c) {
-		return getTile(c.getX(), c.getY());
+	public TileType getTileType(int x, int y) {
+		int cell = board.getSpace(x, y);
+		if (cell < 0 || (cells[cell] & 0xFF) == TileCode.EMPTY) {
+			return null;
+		}
+		return TileType.of(cells[cell] & 0xFF);
 	}
 
 	/**
@@ -157,15 +440,163 @@ public class Model {
 		} else {
 			turn = Turn.RED;
 		}
+		positionHash ^= BLUE_TURN_KEY;
+	}
+
+	/**
+	 * Gets a 64-bit Zobrist hash of the current position: the tile and
+	 * rotation in every space, the owner of every road and city, and whose
+	 * turn it is. The hash is kept up to date by every placement and undo, so
+	 * getting it is free. Equal positions always have equal hashes, however
+	 * they were reached, even in different Model objects.
+	 * 
+	 * @return The hash of the current position.
+	 */
+	public long positionHash() {
+		return positionHash;
+	}
+
+	/**
+	 * Gets a key for the current position and the tile about to be placed
+	 * that is the same for all eight images of the position under the
+	 * symmetries of the board (see {@linkplain Symmetry}). The key of each
+	 * image is made like {@link #positionHash()}, plus a key for the rotation
+	 * class of the pending tile, and the smallest is the canonical one. The
+	 * board turns about the starting tile: the middle space of a board of
+	 * fixed size, or (0,0) on an unbounded board, where nothing else can tell
+	 * the images apart.
+	 * <p>
+	 * Unlike the position hash, this is not kept up to date by placements.
+	 * Each call looks at every space on the board eight times.
+	 * 
+	 * @param tileCode
+	 *            The {@linkplain TileCode} of the tile about to be placed, in
+	 *            any rotation, or TileCode.EMPTY to key the position alone.
+	 * @return The canonical key, and the symmetry that turns the position into
+	 *         its canonical image.
+	 */
+	public CanonicalKey canonicalKey(int tileCode) {
+		long turnKey = turn == Turn.BLUE ? BLUE_TURN_KEY : 0;
+		for (int s = 0; s < Symmetry.COUNT; s++) {
+			symmetryKeys[s] = turnKey;
+			if (tileCode != TileCode.EMPTY) {
+				symmetryKeys[s] ^= pendingKey(Symmetry.transformCode(tileCode, s));
+			}
+		}
+
+		for (int cell = 0; cell < board.getSpaceCount(); cell++) {
+			int code = cells[cell] & 0xFF;
+			if (code == TileCode.EMPTY) {
+				continue;
+			}
+			int x = board.getX(cell);
+			int y = board.getY(cell);
+			Owner roadOwner = roads.contains(cell) ? roads.getOwner(cell) : Owner.NONE;
+			Owner cityOwner = cities.contains(cell) ? cities.getOwner(cell) : Owner.NONE;
+			for (int s = 0; s < Symmetry.COUNT; s++) {
+				int tx = Symmetry.transformX(x, y, center, s);
+				int ty = Symmetry.transformY(x, y, center, s);
+				symmetryKeys[s] ^= zobristKey(tx, ty, Symmetry.transformCode(code, s))
+						^ ownerKey(tx, ty, QuadrantType.ROAD, roadOwner)
+						^ ownerKey(tx, ty, QuadrantType.CITY, cityOwner);
+			}
+		}
+
+		int best = Symmetry.IDENTITY;
+		for (int s = 1; s < Symmetry.COUNT; s++) {
+			if (symmetryKeys[s] < symmetryKeys[best]) {
+				best = s;
+			}
+		}
+		return new CanonicalKey(symmetryKeys[best], best, center);
+	}
+
+	/**
+	 * Gets the key of the tile about to be placed. The player chooses its
+	 * rotation, so every rotation of a tile has the same key.
+	 * 
+	 * @param tileCode
+	 *            The {@linkplain TileCode} of the tile, in any rotation.
+	 * @return The key.
+	 */
+	private static long pendingKey(int tileCode) {
+		return PENDING_KEYS[TileCode.shape(tileCode)];
+	}
+
+	/**
+	 * Gets the Zobrist key of a tile or owner in a space. Rather than keeping
+	 * a table of random keys, which an unbounded board couldn't index, each
+	 * key is made by mixing its space and value with the SplitMix64 finalizer.
+	 * 
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 * @param value
+	 *            The {@linkplain TileCode} of the tile, or one of the owner
+	 *            values from ownerValue.
+	 * @return The key.
+	 */
+	private static long zobristKey(int x, int y, int value) {
+		long z = ((long) x << 40) ^ ((long) y << 16) ^ value;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Gets the Zobrist key of the owner of a space's roads or cities.
+	 * 
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 * @param type
+	 *            The type of the feature, either ROAD or CITY.
+	 * @param owner
+	 *            The owner of the feature.
+	 * @return The key, or 0 if the feature has no owner.
+	 */
+	private static long ownerKey(int x, int y, QuadrantType type, Owner owner) {
+		if (owner == Owner.NONE) {
+			return 0;
+		}
+		return zobristKey(x, y, 0x100 + 4 * type.ordinal() + owner.ordinal());
 	}
 
 	/**
-	 * Gets whether the game is over.
+	 * Gets whether the game is over. A game on a board of fixed size is over
+	 * when the board is full; a game on an unbounded board is over when its
+	 * tile limit is reached.
 	 * 
 	 * @return Whether the game is over.
 	 */
 	public boolean isGameOver() {
-		return tilesPlaced >= board.length * board.length;
+		return tilesPlaced >= tileLimit;
+	}
+
+	/**
+	 * Gets the number of tiles placed on the board, including the starting
+	 * tile.
+	 * 
+	 * @return The number of tiles placed on the board.
+	 */
+	public int getTilesPlaced() {
+		return tilesPlaced;
+	}
+
+	/**
+	 * Counts the tiles in the unfinished roads and cities that a player owns.
+	 * These are the points the player would score if all of those features
+	 * were finished. A tile with both a road and a city counts once for each.
+	 * The feature indexes keep running totals, so this takes constant time.
+	 *
+	 * @param owner
+	 *            The owner to count for.
+	 * @return The number of tiles in the owner's unfinished features.
+	 */
+	public int getUnfinishedTiles(Owner owner) {
+		return roads.getUnfinishedTiles(owner) + cities.getUnfinishedTiles(owner);
 	}
 
 	/**
@@ -198,136 +629,240 @@ public class Model {
 	 *            odd so the board has a middle space.
 	 */
 	public Model(int size) {
-		if (size % 2 == 0) {
-			throw new IllegalArgumentException(size + ": The game board size must be odd so it has a middle space.");
-		}
-		board = new Tile[size][size];
-		board[size / 2][size / 2] = Tile.randomTile();
-		turn = Turn.RED;
-		tilesPlaced = 1;
+		this(size, false);
 	}
 
 	/**
-	 * Gets the coordinates of the next tile on the game board, given the x and
-	 * y of a tile and a direction in which to travel.
+	 * Constructs a new Model with a given size, optionally in compact mode. A
+	 * compact model keeps only the packed board and the feature indexes, not
+	 * the Tile objects placed on it, so it uses far less memory. Its getTile
+	 * method returns a new view of the space on every call, so listeners on
+	 * those tiles are never notified. This is meant for headless games.
 	 * 
-	 * @param x
-	 *            The x-value of the start tile.
-	 * @param y
-	 *            The y-value of the start tile.
-	 * @param side
-	 *            The side of the tile to move from. Using the constants defined
-	 *            in {@linkplain Tile} is recommended.
-	 * @return A {@linkplain Coordinate} for the next tile.
-	 * @see Coordinate
+	 * @param size
+	 *            The width and height of the game board. This number must be
+	 *            odd so the board has a middle space.
+	 * @param compact
+	 *            Whether to construct a compact model.
 	 */
-	private Coordinate getNextTileCoordinates(int x, int y, int side) {
-		if (side < 0 || side > 3)
-			throw new IllegalArgumentException(side + ": quadrant index must be from 0 to 3. (Use Tile.NORTH, etc. to avoid this error.)");
-
-		switch (side) {
-		case Tile.NORTH:
-			return new Coordinate(x, y - 1);
-		case Tile.EAST:
-			return new Coordinate(x + 1, y);
-		case Tile.SOUTH:
-			return new Coordinate(x, y + 1);
-		case Tile.WEST:
-			return new Coordinate(x - 1, y);
-		default:
-			return null;
-		}
+	public Model(int size, boolean compact) {
+		this(size, compact, Tile.randomTile());
 	}
 
 	/**
-	 * Gets the coordinates of the next tile on the game board, given the
-	 * Coordinate of a tile and a direction in which to travel.
+	 * Constructs a new Model with a given size, optionally in compact mode,
+	 * that draws its tiles from a given random number generator. Games made
+	 * with generators in the same state draw the same tiles, so a game played
+	 * by players that also draw from {@link #getRandom()} replays exactly from
+	 * its seed.
 	 * 
-	 * @param c
-	 *            The Coordinate of the start tile.
-	 * @param side
-	 *            The side of the tile to move from. Using the constants defined
-	 *            in {@linkplain Tile} is recommended.
-	 * @return A {@linkplain Coordinate} for the next tile.
-	 * @see Coordinate
+	 * @param size
+	 *            The width and height of the game board. This number must be
+	 *            odd so the board has a middle space.
+	 * @param compact
+	 *            Whether to construct a compact model.
+	 * @param random
+	 *            The random number generator to draw the starting tile and
+	 *            every later tile from. It must not be used by another thread
+	 *            while this game is being played.
+	 * @see SplitMixRandom
 	 */
-	@SuppressWarnings("unused")
-	private Coordinate getNextTileCoordinates(Coordinate c, int side) {
-		return getNextTileCoordinates(c.getX(), c.getY(), side);
+	public Model(int size, boolean compact, Random random) {
+		this(size, compact, Tile.randomTile(random));
+		this.random = random;
 	}
 
 	/**
-	 * Gets whether a given x and y coordinates are in bounds.
+	 * Constructs a new Model with a given size and starting tile, optionally
+	 * in compact mode. Games that start from the same tile and make the same
+	 * moves end up in the same state, which makes them easy to replay.
 	 * 
-	 * @param x
-	 *            The x coordinate to check.
-	 * @param y
-	 *            The y coordinate to check
-	 * @return Whether the given x and y are in bounds.
+	 * @param size
+	 *            The width and height of the game board. This number must be
+	 *            odd so the board has a middle space.
+	 * @param compact
+	 *            Whether to construct a compact model.
+	 * @param startTile
+	 *            The tile to put in the middle space.
+	 * @see #Model(int, boolean)
 	 */
-	private boolean isInBounds(int x, int y) {
-		return (x >= 0 && x < board.length && y >= 0 && y < board[0].length);
+	public Model(int size, boolean compact, Tile startTile) {
+		if (size % 2 == 0) {
+			throw new IllegalArgumentException(size + ": The game board size must be odd so it has a middle space.");
+		}
+		initialize(new DenseBoard(size), size * size, compact);
+		minX = 0;
+		maxX = size - 1;
+		minY = 0;
+		maxY = size - 1;
+		center = size / 2;
+		putTile(center, center, TileCode.of(startTile), startTile);
 	}
 
 	/**
-	 * Gets whether a given Coordinate is in bounds.
+	 * Constructs a new Model with no board. Used by the static constructor
+	 * methods.
+	 */
+	private Model() {
+	}
+
+	/**
+	 * Constructs a new Model on an unbounded board, like the real tabletop
+	 * game. The board only uses memory where tiles have been placed, and the
+	 * starting tile is at (0,0). Coordinates may be negative.
 	 * 
-	 * @param c
-	 *            The Coordinate to check.
-	 * @return Whether the given Coordinate is in bounds.
-	 * @see Coordinate
+	 * @param tileLimit
+	 *            The number of tiles, including the starting tile, after which
+	 *            the game is over.
+	 * @param compact
+	 *            Whether to construct a compact model.
+	 * @return A new Model with an unbounded board.
+	 * @see #Model(int, boolean)
 	 */
-	private boolean isInBounds(Coordinate c) {
-		return isInBounds(c.getX(), c.getY());
+	public static Model unbounded(int tileLimit, boolean compact) {
+		return unbounded(tileLimit, compact, null);
 	}
 
 	/**
-	 * Gets the quadrant immediately neighboring the side of a given tile.
+	 * Constructs a new Model on an unbounded board that draws its tiles from
+	 * a given random number generator.
 	 * 
-	 * @param x
-	 *            The x-coordinate of the start tile.
-	 * @param y
-	 *            The y-coordinate of the start tile.
-	 * @param side
-	 *            The side of the start tile to check for neighbors on.
-	 * @return The {@linkplain Quadrant} immediately neighboring the side of a
-	 *         given tile, or null if there is none.
-	 */
-	private Quadrant getNeighborQuadrant(int x, int y, int side) {
-		Coordinate neighborC = getNextTileCoordinates(x, y, side);
-		if (isInBounds(neighborC) && getTile(neighborC) != null) {
-			return getTile(neighborC).getQuadrant(Tile.oppositeSide(side));
-		} else {
-			return null;
+	 * @param tileLimit
+	 *            The number of tiles, including the starting tile, after which
+	 *            the game is over.
+	 * @param compact
+	 *            Whether to construct a compact model.
+	 * @param random
+	 *            The random number generator to draw the starting tile and
+	 *            every later tile from, or null to use the current thread's.
+	 * @return A new Model with an unbounded board.
+	 * @see #unbounded(int, boolean)
+	 * @see #Model(int, boolean, Random)
+	 */
+	public static Model unbounded(int tileLimit, boolean compact, Random random) {
+		if (tileLimit < 1) {
+			throw new IllegalArgumentException(tileLimit + ": The tile limit must include the starting tile.");
 		}
+		Model model = new Model();
+		model.random = random;
+		model.initialize(new ChunkedBoard(), tileLimit, compact);
+		Tile startTile = Tile.randomTile(model.getRandom());
+		model.putTile(0, 0, TileCode.of(startTile), startTile);
+		return model;
 	}
 
 	/**
-	 * Gets the quadrant immediately neighboring the side of a given tile.
-	 * 
-	 * @param c
-	 *            The Coordinate of the start tile.
-	 * @param side
-	 *            The side of the start tile to check for neighbors on.
-	 * @return The {@linkplain Quadrant} immediately neighboring the side of a
-	 *         given tile, or null if there is none.
-	 * @see Coordinate
+	 * Makes a compact copy of this game, which search algorithms can play
+	 * ahead in without changing this one. Listeners and the undo journal are
+	 * not copied, and the copy draws its tiles from the generator of
+	 * whichever thread plays in it, so searching never changes which tiles
+	 * this game draws.
+	 *
+	 * @return A compact Model in the same state as this one.
+	 * @see #Model(int, boolean)
 	 */
-	@SuppressWarnings("unused")
-	private Quadrant getNeighborQuadrant(Coordinate c, int side) {
-		return getNeighborQuadrant(c.getX(), c.getY(), side);
+	public Model compactCopy() {
+		Model copy = new Model();
+		copy.board = board.copy();
+		copy.tileLimit = tileLimit;
+		copy.cells = cells.clone();
+		copy.changeStamps = new int[cells.length];
+		copy.frontier = new Frontier(frontier);
+		copy.roads = new FeatureIndex(roads);
+		copy.cities = new FeatureIndex(cities);
+		copy.redScore = redScore;
+		copy.blueScore = blueScore;
+		copy.tilesPlaced = tilesPlaced;
+		copy.minX = minX;
+		copy.maxX = maxX;
+		copy.minY = minY;
+		copy.maxY = maxY;
+		copy.center = center;
+		copy.tileDistribution = tileDistribution;
+		copy.turn = turn;
+		copy.positionHash = positionHash;
+		return copy;
 	}
 
 	/**
-	 * A method to convert whose turn it is into an Owner for a tile.
+	 * Sets up the packed arrays of a new Model for a given board. The starting
+	 * tile must be put on the board afterwards.
 	 * 
-	 * @param player
-	 *            The player whose turn it is.
-	 * @return An Owner value matching the current Turn.
-	 * @see Owner
-	 * @see Turn
+	 * @param board
+	 *            The layout of the board.
+	 * @param tileLimit
+	 *            The number of tiles after which the game is over.
+	 * @param compact
+	 *            Whether this is a compact model.
 	 */
-	private static Owner turnToOwner(Turn player) {
+	private void initialize(Board board, int tileLimit, boolean compact) {
+		this.board = board;
+		this.tileLimit = tileLimit;
+
+		int capacity = Math.max(board.getSpaceCount(), 64);
+		cells = new byte[capacity];
+		Arrays.fill(cells, (byte) TileCode.EMPTY);
+		if (!compact) {
+			tiles = new Tile[capacity];
+		}
+		changeStamps = new int[capacity];
+		frontier = new Frontier(capacity);
+		roads = new FeatureIndex(capacity);
+		cities = new FeatureIndex(capacity);
+
+		minX = Integer.MAX_VALUE;
+		maxX = Integer.MIN_VALUE;
+		minY = Integer.MAX_VALUE;
+		maxY = Integer.MIN_VALUE;
+		turn = Turn.RED;
+		tilesPlaced = 0;
+	}
+
+	/**
+	 * Makes room in the packed arrays for every space the board has added.
+	 */
+	private void ensureCapacity() {
+		int spaces = board.getSpaceCount();
+		if (spaces <= cells.length) {
+			return;
+		}
+
+		int oldLength = cells.length;
+		int newLength = Math.max(spaces, 2 * oldLength);
+		cells = Arrays.copyOf(cells, newLength);
+		Arrays.fill(cells, oldLength, newLength, (byte) TileCode.EMPTY);
+		if (tiles != null) {
+			tiles = Arrays.copyOf(tiles, newLength);
+		}
+		changeStamps = Arrays.copyOf(changeStamps, newLength);
+		frontier.grow(newLength);
+		roads.grow(newLength);
+		cities.grow(newLength);
+	}
+
+	/**
+	 * Gets whether a given x and y coordinates are in bounds.
+	 * 
+	 * @param x
+	 *            The x coordinate to check.
+	 * @param y
+	 *            The y coordinate to check
+	 * @return Whether the given x and y are in bounds.
+	 */
+	private boolean isInBounds(int x, int y) {
+		return board.isInBounds(x, y);
+	}
+
+	/**
+	 * A method to convert whose turn it is into an Owner for a tile.
+	 * 
+	 * @param player
+	 *            The player whose turn it is.
+	 * @return An Owner value matching the current Turn.
+	 * @see Owner
+	 * @see Turn
+	 */
+	private static Owner turnToOwner(Turn player) {
 		switch (player) {
 		case RED:
 			return Owner.RED;
@@ -339,22 +874,25 @@ public class Model {
 	}
 
 	/**
-	 * Given a list of Owners encountered during a crawl of the game board, gets
-	 * the Owner who should own the entire feature.
+	 * Given the features next to a newly placed tile, gets the Owner who should
+	 * own the feature they are merged into.
 	 * 
-	 * @param owners
-	 *            The list of Owners generated from a crawl of the board.
+	 * @param index
+	 *            The index containing the features.
+	 * @param roots
+	 *            The roots of the neighboring features.
+	 * @param count
+	 *            The number of roots to look at.
 	 * @return The Owner who should own the entire feature.
 	 */
-	private Owner newOwner(LinkedList<Owner> owners) {
+	private Owner newOwner(FeatureIndex index, int[] roots, int count) {
 		// Assume we encountered no owned features.
 		boolean allNone = true;
 		Owner newOwner = Owner.NONE;
 
 		// Iterate through the owners we encountered
-		Iterator<Owner> itr = owners.iterator();
-		while (itr.hasNext()) {
-			Owner owner = itr.next();
+		for (int i = 0; i < count; i++) {
+			Owner owner = index.getOwner(roots[i]);
 			if (owner != Owner.NONE) { // Unowned features do not affect the
 										// outcome.
 				if (allNone) {
@@ -398,31 +936,95 @@ public class Model {
 			throw new ArrayIndexOutOfBoundsException("(" + x + "," + y + "): outside the game board");
 		}
 
-		// Check if there is already a tile where we are trying to place.
-		if (getTile(x, y) != null) {
-			return false;
-		}
+		return isMoveValid(x, y, TileCode.of(tile));
+	}
 
-		// Check all neighboring tiles to see if the Quadrants match up.
-		boolean hasNeighbor = false;
-		for (int side = 0; side < 4; side++) {
-			Quadrant thisQuadrant = tile.getQuadrant(side);
-			Quadrant neighborQuadrant = getNeighborQuadrant(x, y, side);
-			if (neighborQuadrant != null) {
-				hasNeighbor = true;
-				if (thisQuadrant.getType() != neighborQuadrant.getType()) {
-					return false;
-				}
-			}
+	/**
+	 * Checks whether a tile of a given type can be legally placed at a given
+	 * x and y on the board.
+	 * 
+	 * @param x
+	 *            The x-coordinate at which to place the tile.
+	 * @param y
+	 *            The y-coordinate at which to place the tile.
+	 * @param tile
+	 *            The type of tile to place, in the rotation to place it.
+	 * @return Whether the tile can be legally placed at the given x and y.
+	 */
+	public boolean isMoveValid(int x, int y, TileType tile) {
+		if (!isInBounds(x, y)) {
+			throw new ArrayIndexOutOfBoundsException("(" + x + "," + y + "): outside the game board");
 		}
 
-		// Check if there were any adjacent tiles at all.
-		if (!hasNeighbor) {
-			return false;
-		}
+		return isMoveValid(x, y, tile.getCode());
+	}
 
-		// We passed all the tests!
-		return true;
+	/**
+	 * Checks whether a tile with a given code can be legally placed at a given
+	 * x and y on the board. The x and y must be in bounds.
+	 * 
+	 * @param x
+	 *            The x-coordinate at which to place the tile.
+	 * @param y
+	 *            The y-coordinate at which to place the tile.
+	 * @param code
+	 *            The {@linkplain TileCode} of the tile to place.
+	 * @return Whether the tile can be legally placed at the given x and y.
+	 */
+	private boolean isMoveValid(int x, int y, int code) {
+		// Only empty spaces next to placed tiles are in the frontier, and
+		// the frontier knows which quadrants those neighbors require. Bit 0 of
+		// the legal rotations is the tile as it is.
+		int cell = board.getSpace(x, y);
+		return cell >= 0 && frontier.contains(cell) && (Frontier.legalRotations(code, frontier.getConstraints(cell)) & 1) != 0;
+	}
+
+	/**
+	 * Finds every legal placement of a tile. This makes one pass over the
+	 * frontier, looking up the legal rotations of the tile in each space, so
+	 * it is much faster than calling isMoveValid for every space and
+	 * rotation.
+	 * 
+	 * @param tileCode
+	 *            The {@linkplain TileCode} of the tile, before it is rotated.
+	 * @return A new list of the legal placements.
+	 * @see #legalPlacements(int, boolean, LegalPlacements)
+	 */
+	public LegalPlacements legalPlacements(int tileCode) {
+		LegalPlacements placements = new LegalPlacements();
+		legalPlacements(tileCode, false, placements);
+		return placements;
+	}
+
+	/**
+	 * Finds every legal placement of a tile, reusing a list. The placements
+	 * are grouped by space, in the order of the frontier, with the rotations
+	 * of each space in increasing order. That order depends only on the moves
+	 * made, so it is the same whenever a game is replayed.
+	 * 
+	 * @param tileCode
+	 *            The {@linkplain TileCode} of the tile, before it is rotated.
+	 * @param distinct
+	 *            Whether to leave out rotations that give the same tile as a
+	 *            smaller rotation, such as every rotation but the first of a
+	 *            tile that is the same on all four sides.
+	 * @param placements
+	 *            The list to empty and fill in with the legal placements.
+	 * @return The number of placements found.
+	 */
+	public int legalPlacements(int tileCode, boolean distinct, LegalPlacements placements) {
+		// Rotating a tile by its number of distinct codes gives the same tile
+		// again, so only the rotations below that number are distinct.
+		int keep = distinct ? (1 << TileCode.shapeSize(TileCode.shape(tileCode))) - 1 : 0xF;
+		placements.clear();
+		for (int i = 0; i < frontier.size(); i++) {
+			int cell = frontier.get(i);
+			int rotations = Frontier.legalRotations(tileCode, frontier.getConstraints(cell)) & keep;
+			if (rotations != 0) {
+				placements.addSpace(board.getX(cell), board.getY(cell), rotations);
+			}
+		}
+		return placements.size();
 	}
 
 	/**
@@ -442,7 +1044,9 @@ public class Model {
 	}
 
 	/**
-	 * Places the given tile at the given x and y on the board.
+	 * Places the given tile at the given x and y on the board. The listeners
+	 * of every changed tile, and then the placement listeners, are notified
+	 * once after the whole board has been updated.
 	 * 
 	 * @param x
 	 *            The x-coordinate at which to place the tile.
@@ -450,38 +1054,268 @@ public class Model {
 	 *            The y-coordinate at which to place the tile.
 	 * @param tile
 	 *            The tile to place at the given x and y.
+	 * @return The changes made by the placement. The same object is reused by
+	 *         every placement, so it is only valid until the next one.
+	 * @see PlacementResult#copy()
 	 */
-	public void placeTile(int x, int y, Tile tile) {
+	public PlacementResult placeTile(int x, int y, Tile tile) {
 		// Check if the move is valid. If not, we must throw an exception.
 		if (!isMoveValid(x, y, tile)) {
 			throw new InvalidMoveException("Tile " + tile + " at (" + x + "," + y + ")");
 		}
+		return place(x, y, TileCode.of(tile), tile);
+	}
+
+	/**
+	 * Places a tile of the given type at the given x and y on the board. A
+	 * compact model doesn't make a Tile object for it, so this allocates
+	 * nothing. Otherwise this is the same as placing a new Tile of the type.
+	 * 
+	 * @param x
+	 *            The x-coordinate at which to place the tile.
+	 * @param y
+	 *            The y-coordinate at which to place the tile.
+	 * @param tile
+	 *            The type of tile to place, in the rotation to place it.
+	 * @return The changes made by the placement. The same object is reused by
+	 *         every placement, so it is only valid until the next one.
+	 * @see #placeTile(int, int, Tile)
+	 */
+	public PlacementResult placeTile(int x, int y, TileType tile) {
+		if (!isMoveValid(x, y, tile)) {
+			throw new InvalidMoveException("Tile " + tile + " at (" + x + "," + y + ")");
+		}
+		return place(x, y, tile.getCode(), null);
+	}
+
+	/**
+	 * Places a tile that is known to be legal and notifies the listeners.
+	 * 
+	 * @param x
+	 *            The x-coordinate at which to place the tile.
+	 * @param y
+	 *            The y-coordinate at which to place the tile.
+	 * @param code
+	 *            The {@linkplain TileCode} of the tile.
+	 * @param tile
+	 *            The tile to place, or null to make one from the code if this
+	 *            model keeps Tile objects.
+	 * @return The changes made by the placement.
+	 */
+	private PlacementResult place(int x, int y, int code, Tile tile) {
+		if (journal != null) {
+			journal.beginFrame();
+			journal.record(journaledFields, RED_SCORE, 0, redScore);
+			journal.record(journaledFields, BLUE_SCORE, 0, blueScore);
+			journal.record(journaledFields, TILES_PLACED, 0, tilesPlaced);
+			journal.record(journaledFields, TURN, 0, turn.ordinal());
+			journal.record(journaledFields, HASH, 0, (int) positionHash);
+			journal.record(journaledFields, HASH, 1, (int) (positionHash >>> 32));
+			journal.record(journaledFields, BOUNDS, 0, minX);
+			journal.record(journaledFields, BOUNDS, 1, maxX);
+			journal.record(journaledFields, BOUNDS, 2, minY);
+			journal.record(journaledFields, BOUNDS, 3, maxY);
+		}
 
 		// Put the tile in the board.
-		board[x][y] = tile;
+		placementStamp++;
+		result.reset(x, y, turn);
+		putTile(x, y, code, tile);
+		recordChange(board.getSpace(x, y));
 
-		// Determine who should own the roads and cities on the new tile.
-		LinkedList<Owner> neighborRoadOwners = new LinkedList<Owner>();
-		LinkedList<Owner> neighborCityOwners = new LinkedList<Owner>();
-		for (int side = 0; side < 4; side++) {
-			Quadrant neighborQ = getNeighborQuadrant(x, y, side);
-			if (neighborQ != null) {
-				if (neighborQ.getType() == QuadrantType.ROAD) {
-					neighborRoadOwners.add(neighborQ.getOwner());
-				} else if (neighborQ.getType() == QuadrantType.CITY) {
-					neighborCityOwners.add(neighborQ.getOwner());
-				}
+		// Merge the roads and cities on the new tile into their neighboring
+		// features, updating the game state accordingly
+		updateFeatures(x, y, QuadrantType.ROAD);
+		updateFeatures(x, y, QuadrantType.CITY);
+
+		nextTurn();
+
+		// Owners were changed quietly, so each changed tile is only notified
+		// once.
+		if (tiles != null) {
+			for (int i = 0; i < result.getChangeCount(); i++) {
+				tiles[board.getSpace(result.getChangedX(i), result.getChangedY(i))].updateListeners();
 			}
 		}
-		Owner roadOwner = newOwner(neighborRoadOwners);
-		Owner cityOwner = newOwner(neighborCityOwners);
+		for (int i = 0; i < placementListeners.size(); i++) {
+			placementListeners.get(i).tilePlaced(result);
+		}
 
-		// Crawl through the board, updating the game state accordingly
-		updateTiles(x, y, QuadrantType.ROAD, roadOwner);
-		updateTiles(x, y, QuadrantType.CITY, cityOwner);
+		return result;
+	}
 
-		tilesPlaced++;
-		nextTurn();
+	/**
+	 * Records that the tile in a space changed during the current placement.
+	 * 
+	 * @param cell
+	 *            The space that changed.
+	 */
+	private void recordChange(int cell) {
+		if (changeStamps[cell] != placementStamp) {
+			changeStamps[cell] = placementStamp;
+			result.addChange(board.getX(cell), board.getY(cell));
+			if (journal != null && tiles != null) {
+				journal.record(journaledFields, QUADRANTS, cell, 0);
+			}
+		}
+	}
+
+	/**
+	 * Turns undo on or off. While undo is on, every placement is recorded so
+	 * that it can be undone, in time proportional to the changes it made.
+	 * Only placements made while undo is on can be undone; turning it off
+	 * forgets them.
+	 * 
+	 * @param enabled
+	 *            Whether placements can be undone.
+	 * @see #undo()
+	 */
+	public void setUndoEnabled(boolean enabled) {
+		if (enabled == (journal != null)) {
+			return;
+		}
+
+		journal = enabled ? new UndoJournal() : null;
+		frontier.setJournal(journal);
+		roads.setJournal(journal);
+		cities.setJournal(journal);
+	}
+
+	/**
+	 * Checks whether there is a placement that can be undone.
+	 * 
+	 * @return Whether undo() can be called.
+	 */
+	public boolean canUndo() {
+		return journal != null && journal.getDepth() > 0;
+	}
+
+	/**
+	 * Undoes the most recent placement, putting the board, features, scores,
+	 * and turn back as they were. The listeners of every tile whose owners
+	 * change back are notified once. Placement listeners are not notified.
+	 * The removed tile keeps the quadrant owners it was given.
+	 * 
+	 * @throws IllegalStateException
+	 *             if there is no placement to undo.
+	 * @see #setUndoEnabled(boolean)
+	 */
+	public void undo() {
+		if (!canUndo()) {
+			throw new IllegalStateException("There is no placement to undo.");
+		}
+
+		undoneCount = 0;
+		journal.undoFrame();
+
+		// Read the quadrant owners back from the restored features, then
+		// notify each tile once.
+		for (int i = 0; i < undoneCount; i++) {
+			int cell = undoneCells[i];
+			Tile tile = tiles[cell];
+			if (tile == null) {
+				continue;
+			}
+			if (roads.contains(cell)) {
+				setQuadrantOwners(tile, QuadrantType.ROAD, roads.getOwner(cell));
+			}
+			if (cities.contains(cell)) {
+				setQuadrantOwners(tile, QuadrantType.CITY, cities.getOwner(cell));
+			}
+		}
+		for (int i = 0; i < undoneCount; i++) {
+			Tile tile = tiles[undoneCells[i]];
+			if (tile != null) {
+				tile.updateListeners();
+			}
+		}
+	}
+
+	/**
+	 * Puts back a field of this model that the journal recorded.
+	 * 
+	 * @param field
+	 *            Which field was changed.
+	 * @param index
+	 *            The index in the field that was changed.
+	 * @param value
+	 *            The value the field had before it was changed.
+	 * @see Undoable#restore(int, int, int)
+	 */
+	private void restoreField(int field, int index, int value) {
+		switch (field) {
+		case CELL:
+			cells[index] = (byte) value;
+			break;
+		case TILE:
+			tiles[index] = null;
+			break;
+		case QUADRANTS:
+			if (undoneCount == undoneCells.length) {
+				undoneCells = Arrays.copyOf(undoneCells, 2 * undoneCount);
+			}
+			undoneCells[undoneCount++] = index;
+			break;
+		case RED_SCORE:
+			redScore = value;
+			break;
+		case BLUE_SCORE:
+			blueScore = value;
+			break;
+		case TILES_PLACED:
+			tilesPlaced = value;
+			break;
+		case TURN:
+			turn = TURNS[value];
+			break;
+		case HASH:
+			if (index == 0) {
+				positionHash = (positionHash & 0xFFFFFFFF00000000L) | (value & 0xFFFFFFFFL);
+			} else {
+				positionHash = (positionHash & 0xFFFFFFFFL) | ((long) value << 32);
+			}
+			break;
+		case BOUNDS:
+			switch (index) {
+			case 0:
+				minX = value;
+				break;
+			case 1:
+				maxX = value;
+				break;
+			case 2:
+				minY = value;
+				break;
+			default:
+				maxY = value;
+				break;
+			}
+			break;
+		default:
+			throw new IllegalArgumentException(field + ": unknown journal field");
+		}
+	}
+
+	/**
+	 * Adds a listener to notify after each placement.
+	 * 
+	 * @param listener
+	 *            The PlacementListener to add.
+	 * @see PlacementListener
+	 */
+	public void addPlacementListener(PlacementListener listener) {
+		placementListeners.add(listener);
+	}
+
+	/**
+	 * Removes a placement listener.
+	 * 
+	 * @param listener
+	 *            The PlacementListener to remove.
+	 * @see PlacementListener
+	 */
+	public void removePlacementListener(PlacementListener listener) {
+		placementListeners.remove(listener);
 	}
 
 	/**
@@ -499,29 +1333,186 @@ public class Model {
 	}
 
 	/**
-	 * Starting at a given tile, crawls through the board, updating ownership
-	 * and adding to the score if features are completed.
+	 * Gets the index of the space next to a given space on the board.
+	 * 
+	 * @param x
+	 *            The x-coordinate of the start space.
+	 * @param y
+	 *            The y-coordinate of the start space.
+	 * @param side
+	 *            The side of the start space to move from.
+	 * @return The index of the neighboring space, or -1 if it is out of bounds
+	 *         or has never been added to the board.
+	 * @see Board
+	 */
+	private int neighborCell(int x, int y, int side) {
+		return board.getSpace(x + SIDE_DX[side], y + SIDE_DY[side]);
+	}
+
+	/**
+	 * Puts a tile in the packed board, updates the frontier around it, and adds
+	 * its roads and cities to the feature indexes as new features, without
+	 * merging them with their neighbors.
+	 * 
+	 * @param x
+	 *            The x-coordinate of the tile.
+	 * @param y
+	 *            The y-coordinate of the tile.
+	 * @param code
+	 *            The {@linkplain TileCode} of the tile.
+	 * @param tile
+	 *            The tile to put on the board, or null to make one from the
+	 *            code if this model keeps Tile objects.
+	 */
+	private void putTile(int x, int y, int code, Tile tile) {
+		int cell = board.addSpace(x, y);
+		ensureCapacity();
+		if (journal != null) {
+			journal.record(journaledFields, CELL, cell, cells[cell]);
+			if (tiles != null) {
+				journal.record(journaledFields, TILE, cell, 0);
+			}
+		}
+		cells[cell] = (byte) code;
+		if (tiles != null) {
+			tiles[cell] = (tile != null) ? tile : TileCode.toTile(code);
+		}
+		positionHash ^= zobristKey(x, y, code);
+		minX = Math.min(minX, x);
+		maxX = Math.max(maxX, x);
+		minY = Math.min(minY, y);
+		maxY = Math.max(maxY, y);
+		tilesPlaced++;
+
+		// Every empty space around the tile joins the frontier, so every
+		// in-bounds neighbor of a placed tile has been added to the board.
+		frontier.remove(cell);
+		for (int side = 0; side < 4; side++) {
+			int neighborX = x + SIDE_DX[side];
+			int neighborY = y + SIDE_DY[side];
+			if (board.isInBounds(neighborX, neighborY)) {
+				int neighbor = board.addSpace(neighborX, neighborY);
+				ensureCapacity();
+				if ((cells[neighbor] & 0xFF) == TileCode.EMPTY) {
+					frontier.constrain(neighbor, Tile.oppositeSide(side), TileCode.sideType(code, side));
+				}
+			}
+		}
+
+		addFeature(x, y, QuadrantType.ROAD);
+		addFeature(x, y, QuadrantType.CITY);
+	}
+
+	/**
+	 * Gets the {@linkplain FeatureIndex} for a given type of quadrant.
+	 * 
+	 * @param type
+	 *            The type of quadrant, either ROAD or CITY.
+	 * @return The index of features of the given type.
+	 */
+	private FeatureIndex featureIndex(QuadrantType type) {
+		switch (type) {
+		case ROAD:
+			return roads;
+		case CITY:
+			return cities;
+		default:
+			throw new IllegalArgumentException(type + ": only roads and cities are tracked as features.");
+		}
+	}
+
+	/**
+	 * Adds the roads or cities of a tile to the feature index as a new feature,
+	 * counting the edges that lead to empty spaces. Edges of the board count as
+	 * closed.
+	 * 
+	 * @param x
+	 *            The x-coordinate of the tile.
+	 * @param y
+	 *            The y-coordinate of the tile.
+	 * @param type
+	 *            The type of quadrant to add.
+	 */
+	private void addFeature(int x, int y, QuadrantType type) {
+		int cell = board.getSpace(x, y);
+		int code = cells[cell] & 0xFF;
+		if (!TileCode.hasType(code, type)) {
+			return;
+		}
+
+		FeatureIndex index = featureIndex(type);
+		index.add(cell);
+		for (int side = 0; side < 4; side++) {
+			if (TileCode.sideType(code, side) == type.ordinal()) {
+				int neighbor = neighborCell(x, y, side);
+				if (neighbor >= 0 && (cells[neighbor] & 0xFF) == TileCode.EMPTY) {
+					index.addOpenEdges(cell, 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the roads or cities of a newly placed tile to the feature index,
+	 * merging them with the neighboring features they connect to. Updates
+	 * ownership and adds to the score if the merged feature is complete.
 	 * 
 	 * @param x
-	 *            The x-coordinate of the start tile.
+	 *            The x-coordinate of the new tile.
 	 * @param y
-	 *            The y-coordinate of the start tile.
+	 *            The y-coordinate of the new tile.
 	 * @param type
 	 *            The type of quadrant to follow.
-	 * @param owner
-	 *            The new owner of the feature.
 	 */
-	private void updateTiles(int x, int y, QuadrantType type, Owner owner) {
-		// Maintain a set of already-visited tiles.
-		HashSet<Tile> set = new HashSet<Tile>();
+	private void updateFeatures(int x, int y, QuadrantType type) {
+		int cell = board.getSpace(x, y);
+		int code = cells[cell] & 0xFF;
+		if (!TileCode.hasType(code, type)) {
+			return;
+		}
+
+		FeatureIndex index = featureIndex(type);
+
+		// Close the neighbors' edges that lead to the new tile, and find the
+		// distinct features they belong to. There are at most four, so a
+		// linear scan is the cheapest way to skip duplicates.
+		int neighborCount = 0;
+		for (int side = 0; side < 4; side++) {
+			if (TileCode.sideType(code, side) != type.ordinal()) {
+				continue;
+			}
+			int neighbor = neighborCell(x, y, side);
+			if (neighbor >= 0 && (cells[neighbor] & 0xFF) != TileCode.EMPTY) {
+				int root = index.find(neighbor);
+				index.addOpenEdges(root, -1);
+
+				boolean seen = false;
+				for (int i = 0; i < neighborCount; i++) {
+					seen |= neighborRoots[i] == root;
+				}
+				if (!seen) {
+					neighborRoots[neighborCount++] = root;
+				}
+			}
+		}
+		Owner owner = newOwner(index, neighborRoots, neighborCount);
 
-		// The recursive method will return whether the given type of feature is
-		// now complete.
-		boolean tilesComplete = updateTilesRecursive(x, y, type, owner, set);
+		// Only the features that change hands need their quadrants rewritten.
+		for (int i = 0; i < neighborCount; i++) {
+			if (index.getOwner(neighborRoots[i]) != owner) {
+				setFeatureOwner(index, neighborRoots[i], type, owner);
+			}
+			index.union(cell, neighborRoots[i]);
+		}
+		if (tiles != null) {
+			setQuadrantOwners(tiles[cell], type, owner);
+		}
+		index.setOwner(cell, owner);
+		positionHash ^= ownerKey(x, y, type, owner);
 
-		if (tilesComplete) {
-			int scoredTiles = set.size(); // The number of tiles we visited is
-											// the number of tiles that scored
+		if (index.isComplete(cell)) {
+			int scoredTiles = index.getTileCount(cell);
+			result.addCompleted(type, owner, scoredTiles);
 			switch (owner) {
 			case RED:
 				redScore += scoredTiles;
@@ -536,114 +1527,169 @@ public class Model {
 	}
 
 	/**
-	 * A method that recursively walks through the board, updating ownership and
-	 * checking completeness for a given type of quadrant.
+	 * Sets the owner of a feature and, unless this is a compact model, of every
+	 * quadrant in it. Every tile in the feature is recorded as changed.
 	 * 
-	 * @param x
-	 *            The x-coordinate of the tile to examine.
-	 * @param y
-	 *            The y-coordinate of the tile to examine.
+	 * @param index
+	 *            The index containing the feature.
+	 * @param root
+	 *            Any space in the feature.
 	 * @param type
-	 *            The type of quadrant to follow.
+	 *            The type of quadrant in the feature.
 	 * @param owner
 	 *            The new owner of the feature.
-	 * @param set
-	 *            A set of already-visited tiles.
-	 * @return Whether the tile's features are complete.
 	 */
-	private boolean updateTilesRecursive(int x, int y, QuadrantType type, Owner owner, HashSet<Tile> set) {
-		if (!isInBounds(x, y)) {
-			return true; // Nothing to do but return that we're complete from
-							// here.
-		}
+	private void setFeatureOwner(FeatureIndex index, int root, QuadrantType type, Owner owner) {
+		Owner oldOwner = index.getOwner(root);
+		int cell = root;
+		do {
+			if (tiles != null) {
+				setQuadrantOwners(tiles[cell], type, owner);
+			}
+			int x = board.getX(cell);
+			int y = board.getY(cell);
+			positionHash ^= ownerKey(x, y, type, oldOwner) ^ ownerKey(x, y, type, owner);
+			recordChange(cell);
+			cell = index.next(cell);
+		} while (cell != root);
+		index.setOwner(root, owner);
+	}
 
-		Tile tile = getTile(x, y);
-		if (tile == null) {
-			return false; // Nothing to do but return that we've hit an
-							// incomplete spot.
-		}
-		if (!tile.hasQuadrantType(type)) {
-			return false; // The feature we want is nowhere on this tile.
-							// This can only happen if this is the first tile we
-							// check.
+	/**
+	 * Sets the owner of all the quadrants of a given type on a tile, without
+	 * notifying the tile's listeners.
+	 * 
+	 * @param tile
+	 *            The tile to update.
+	 * @param type
+	 *            The type of quadrant to update.
+	 * @param owner
+	 *            The new owner of the quadrants.
+	 */
+	private static void setQuadrantOwners(Tile tile, QuadrantType type, Owner owner) {
+		for (int side = 0; side < 4; side++) {
+			Quadrant q = tile.getQuadrant(side);
+			if (q.getType() == type) {
+				q.setOwnerQuietly(owner);
+			}
 		}
+	}
 
-		if (set.contains(tile)) {
-			return true; // We've already seen this tile, so we assume
-							// completeness.
-		}
+	/**
+	 * Gets the random number generator that this game draws its tiles from.
+	 * Players can draw from it too, so that a whole game replays from one
+	 * seed.
+	 * 
+	 * @return The game's generator, or the current thread's if the game
+	 *         wasn't given one.
+	 */
+	public Random getRandom() {
+		return (random != null) ? random : ThreadLocalRandom.current();
+	}
 
-		set.add(tile);
+	/**
+	 * Gets how likely each tile that can be placed is to be drawn.
+	 * 
+	 * @return The tile distribution.
+	 * @see TileDistribution
+	 */
+	public TileDistribution getTileDistribution() {
+		return tileDistribution;
+	}
 
-		// Check whether the features on each side of the tile are complete
-		boolean[] completes = new boolean[4];
-		for (int side = 0; side < 4; side++) {
-			completes[side] = true; // Assume true, even if we don't have a
-									// feature to follow
-			Quadrant thisQuadrant = tile.getQuadrant(side);
-			if (thisQuadrant.getType() == type) {
-				thisQuadrant.setOwner(owner);
-				Coordinate nextC = getNextTileCoordinates(x, y, side);
-				completes[side] = updateRoadsRecursive(nextC, type, owner, set);
-			}
-		}
+	/**
+	 * Sets how likely each tile that can be placed is to be drawn. The
+	 * default is TileDistribution.CODES.
+	 * 
+	 * @param tileDistribution
+	 *            The new tile distribution.
+	 * @see TileDistribution
+	 */
+	public void setTileDistribution(TileDistribution tileDistribution) {
+		this.tileDistribution = tileDistribution;
+	}
 
-		return completes[0] && completes[1] && completes[2] && completes[3];
+	/**
+	 * Gets the shapes of tile that can be legally placed somewhere on the
+	 * board, in some rotation. This is kept up to date by every placement and
+	 * undo, so getting it is free.
+	 * 
+	 * @return A mask with bit s set if {@linkplain TileCode} shape s can be
+	 *         placed.
+	 */
+	public int getLegalShapes() {
+		return frontier.getLegalShapes();
 	}
 
 	/**
-	 * A method that recursively walks through the board, updating ownership and
-	 * checking completeness for a given type of quadrant.
+	 * Gets the type of a random tile that can be legally placed on the board,
+	 * drawn from the game's generator. Unlike randomLegalTile, this allocates
+	 * nothing.
 	 * 
-	 * @param c
-	 *            The Coordinate of the tile to examine.
-	 * @param type
-	 *            The type of quadrant to follow.
-	 * @param owner
-	 *            The new owner of the feature.
-	 * @param set
-	 *            A set of already-visited tiles.
-	 * @return Whether the tile's features are complete.
-	 * @see Coordinate
+	 * @return A random legal tile type, or null if the game is over.
+	 * @see #randomLegalCode()
 	 */
-	private boolean updateRoadsRecursive(Coordinate c, QuadrantType type, Owner owner, HashSet<Tile> set) {
-		return updateTilesRecursive(c.getX(), c.getY(), type, owner, set);
+	public TileType randomLegalType() {
+		int code = randomLegalCode();
+		return (code == TileCode.EMPTY) ? null : TileType.of(code);
 	}
 
 	/**
-	 * Gets a random tile that can be legally placed on the board.
-	 * @return A random legal tile.
+	 * Gets a random tile that can be legally placed on the board, drawn from
+	 * the game's generator.
+	 * 
+	 * @return A random legal tile, or null if the game is over.
+	 * @see #randomLegalCode()
 	 */
 	public Tile randomLegalTile() {
-		// Prevent infinite-looping conditions when there are no open spaces on
-		// the board
-		if (isGameOver()) {
-			return null;
+		int code = randomLegalCode();
+		return (code == TileCode.EMPTY) ? null : TileCode.toTile(code);
+	}
+
+	/**
+	 * Gets the code of a random tile that can be legally placed on the board,
+	 * drawn from the game's generator with the game's tile distribution. This
+	 * never looks at the board: the frontier keeps track of the shapes that
+	 * fit, so a tile is drawn with a single random number, in the time it
+	 * takes to look through the 24 shapes.
+	 * 
+	 * @return The {@linkplain TileCode} of a random legal tile, or
+	 *         TileCode.EMPTY if no tile can be placed.
+	 * @see #getTileDistribution()
+	 * @see #getRandom()
+	 */
+	public int randomLegalCode() {
+		int shapes = frontier.getLegalShapes();
+		if (isGameOver() || shapes == 0) {
+			return TileCode.EMPTY;
 		}
 
-		// Brute-force over the whole board, rotating the tile and checking
-		// whether it can be legally placed somewhere
-		Tile newTile = null;
-		boolean isLegal = false;
-		while (!isLegal) {
-			newTile = Tile.randomTile();
-			for (int x = 0; x < board.length; x++) {
-				for (int y = 0; y < board[0].length; y++) {
-					if (getTile(x, y) == null) {
-						for (int i = 0; i < 4; i++) {
-							if (isMoveValid(x, y, newTile)) {
-								isLegal = true;
-							}
-							newTile.rotateRight();
-						}
-						if (isLegal) {
-							return newTile;
-						}
-					}
-				}
+		// Pick a shape, and a number from 0 up to its number of codes. Under
+		// the CODES distribution, every shape is as many numbers wide as it
+		// has codes, so one draw picks both.
+		boolean byCode = tileDistribution == TileDistribution.CODES;
+		int total = 0;
+		for (int s = shapes; s != 0; s &= s - 1) {
+			total += byCode ? TileCode.shapeSize(Integer.numberOfTrailingZeros(s)) : 1;
+		}
+		Random random = getRandom();
+		int pick = random.nextInt(total);
+		int shape = 0;
+		for (int s = shapes; s != 0; s &= s - 1) {
+			shape = Integer.numberOfTrailingZeros(s);
+			int width = byCode ? TileCode.shapeSize(shape) : 1;
+			if (pick < width) {
+				break;
 			}
+			pick -= width;
+		}
+		int rotations = byCode ? pick : random.nextInt(TileCode.shapeSize(shape));
+
+		int code = TileCode.shapeCode(shape);
+		for (int i = 0; i < rotations; i++) {
+			code = TileCode.rotateRight(code);
 		}
-		return null;
+		return code;
 	}
 
 	/**
@@ -652,9 +1698,9 @@ public class Model {
 	 */
 	public String toString() {
 		String result = "";
-		for (int y = 0; y < board[0].length; y++) {
-			for (int x = 0; x < board.length; x++) {
-				result += board[x][y] + "\t";
+		for (int y = minY; y <= maxY; y++) {
+			for (int x = minX; x <= maxX; x++) {
+				result += getTile(x, y) + "\t";
 			}
 			result += "\n";
 		}
@@ -0,0 +1,109 @@
+/**
+ * Describes where to place a tile: an x and y on the board, and how many times
+ * to rotate the tile clockwise first.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public class Placement {
+
+	/**
+	 * The x-coordinate at which to place the tile.
+	 */
+	private final int x;
+
+	/**
+	 * The y-coordinate at which to place the tile.
+	 */
+	private final int y;
+
+	/**
+	 * The number of times to rotate the tile clockwise, from 0 to 3.
+	 */
+	private final int rotations;
+
+	/**
+	 * Constructs a new Placement.
+	 * 
+	 * @param x
+	 *            The x-coordinate at which to place the tile.
+	 * @param y
+	 *            The y-coordinate at which to place the tile.
+	 * @param rotations
+	 *            The number of times to rotate the tile clockwise, from 0 to 3.
+	 */
+	public Placement(int x, int y, int rotations) {
+		if (rotations < 0 || rotations > 3) {
+			throw new IllegalArgumentException(rotations + ": rotations must be from 0 to 3.");
+		}
+		this.x = x;
+		this.y = y;
+		this.rotations = rotations;
+	}
+
+	/**
+	 * Gets the x-coordinate at which to place the tile.
+	 * 
+	 * @return The x-coordinate at which to place the tile.
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * Gets the y-coordinate at which to place the tile.
+	 * 
+	 * @return The y-coordinate at which to place the tile.
+	 */
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * Gets the number of times to rotate the tile clockwise.
+	 * 
+	 * @return The number of clockwise rotations, from 0 to 3.
+	 */
+	public int getRotations() {
+		return rotations;
+	}
+
+	/**
+	 * Rotates a tile and places it on the board of a model.
+	 * 
+	 * @param model
+	 *            The model to place the tile in.
+	 * @param tile
+	 *            The tile to place, in its current rotation.
+	 * @throws InvalidMoveException
+	 *             if the placement is not legal.
+	 */
+	public void apply(Model model, Tile tile) {
+		for (int i = 0; i < rotations; i++) {
+			tile.rotateRight();
+		}
+		model.placeTile(x, y, tile);
+	}
+
+	/**
+	 * Places a rotated tile type on the board of a model.
+	 * 
+	 * @param model
+	 *            The model to place the tile in.
+	 * @param tile
+	 *            The type of tile to place, in its current rotation.
+	 * @throws InvalidMoveException
+	 *             if the placement is not legal.
+	 */
+	public void apply(Model model, TileType tile) {
+		model.placeTile(x, y, tile.rotate(rotations));
+	}
+
+	/**
+	 * Returns a string representation of the placement.
+	 */
+	public String toString() {
+		return "(" + x + "," + y + ") rotated " + rotations;
+	}
+
+}
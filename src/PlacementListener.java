@@ -0,0 +1,21 @@
+/**
+ * This interface defines an observer for tiles placed on a {@linkplain Model}.
+ * Listeners are notified once per placement, after the whole board has been
+ * updated.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public interface PlacementListener {
+
+	/**
+	 * Performs actions when a tile is placed.
+	 * 
+	 * @param result
+	 *            The changes made by the placement. It is only valid until the
+	 *            next placement.
+	 * @see PlacementResult#copy()
+	 */
+	public void tilePlaced(PlacementResult result);
+
+}
@@ -0,0 +1,284 @@
+import java.util.Arrays;
+
+/**
+ * The changes made by placing one tile: which spaces changed, which features
+ * were completed, and how the scores changed. A {@linkplain Model} reuses one
+ * PlacementResult for every placement, so a result is only valid until the
+ * next tile is placed. Use {@linkplain #copy()} to keep one longer.
+ *
+ * @author Ben Visness
+ *
+ */
+public class PlacementResult {
+
+	/**
+	 * The x-coordinate of the placed tile.
+	 */
+	private int x;
+
+	/**
+	 * The y-coordinate of the placed tile.
+	 */
+	private int y;
+
+	/**
+	 * The player who placed the tile.
+	 */
+	private Model.Turn player;
+
+	/**
+	 * The x-coordinates of the changed spaces. Only the first
+	 * {@link #changeCount} entries are used.
+	 */
+	private int[] changedX = new int[16];
+
+	/**
+	 * The y-coordinates of the changed spaces. Only the first
+	 * {@link #changeCount} entries are used.
+	 */
+	private int[] changedY = new int[16];
+
+	/**
+	 * The number of changed spaces.
+	 */
+	private int changeCount;
+
+	/**
+	 * The number of tiles in the road completed by the placement, or 0 if no
+	 * road was completed.
+	 */
+	private int completedRoad;
+
+	/**
+	 * The owner of the road completed by the placement.
+	 */
+	private Owner completedRoadOwner = Owner.NONE;
+
+	/**
+	 * The number of tiles in the city completed by the placement, or 0 if no
+	 * city was completed.
+	 */
+	private int completedCity;
+
+	/**
+	 * The owner of the city completed by the placement.
+	 */
+	private Owner completedCityOwner = Owner.NONE;
+
+	/**
+	 * The number of points red scored.
+	 */
+	private int redScoreDelta;
+
+	/**
+	 * The number of points blue scored.
+	 */
+	private int blueScoreDelta;
+
+	/**
+	 * Clears this result for a new placement.
+	 *
+	 * @param x
+	 *            The x-coordinate of the placed tile.
+	 * @param y
+	 *            The y-coordinate of the placed tile.
+	 * @param player
+	 *            The player placing the tile.
+	 */
+	void reset(int x, int y, Model.Turn player) {
+		this.x = x;
+		this.y = y;
+		this.player = player;
+		changeCount = 0;
+		completedRoad = 0;
+		completedRoadOwner = Owner.NONE;
+		completedCity = 0;
+		completedCityOwner = Owner.NONE;
+		redScoreDelta = 0;
+		blueScoreDelta = 0;
+	}
+
+	/**
+	 * Records that the tile in a space changed. The Model makes sure each
+	 * space is only recorded once.
+	 *
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 */
+	void addChange(int x, int y) {
+		if (changeCount == changedX.length) {
+			changedX = Arrays.copyOf(changedX, 2 * changeCount);
+			changedY = Arrays.copyOf(changedY, 2 * changeCount);
+		}
+		changedX[changeCount] = x;
+		changedY[changeCount] = y;
+		changeCount++;
+	}
+
+	/**
+	 * Records that the placement completed a feature.
+	 *
+	 * @param type
+	 *            The type of the feature, either ROAD or CITY.
+	 * @param owner
+	 *            The owner of the feature.
+	 * @param tiles
+	 *            The number of tiles in the feature.
+	 */
+	void addCompleted(QuadrantType type, Owner owner, int tiles) {
+		if (type == QuadrantType.ROAD) {
+			completedRoad = tiles;
+			completedRoadOwner = owner;
+		} else {
+			completedCity = tiles;
+			completedCityOwner = owner;
+		}
+
+		switch (owner) {
+		case RED:
+			redScoreDelta += tiles;
+			break;
+		case BLUE:
+			blueScoreDelta += tiles;
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Makes a copy of this result that isn't reused by the Model.
+	 *
+	 * @return A copy of this result.
+	 */
+	public PlacementResult copy() {
+		PlacementResult copy = new PlacementResult();
+		copy.reset(x, y, player);
+		copy.changedX = Arrays.copyOf(changedX, Math.max(changeCount, 1));
+		copy.changedY = Arrays.copyOf(changedY, Math.max(changeCount, 1));
+		copy.changeCount = changeCount;
+		copy.completedRoad = completedRoad;
+		copy.completedRoadOwner = completedRoadOwner;
+		copy.completedCity = completedCity;
+		copy.completedCityOwner = completedCityOwner;
+		copy.redScoreDelta = redScoreDelta;
+		copy.blueScoreDelta = blueScoreDelta;
+		return copy;
+	}
+
+	/**
+	 * Gets the x-coordinate of the placed tile.
+	 *
+	 * @return The x-coordinate of the placed tile.
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * Gets the y-coordinate of the placed tile.
+	 *
+	 * @return The y-coordinate of the placed tile.
+	 */
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * Gets the player who placed the tile.
+	 *
+	 * @return The player who placed the tile.
+	 */
+	public Model.Turn getPlayer() {
+		return player;
+	}
+
+	/**
+	 * Gets the number of spaces whose tiles changed: the placed tile, and
+	 * every tile in a feature that changed owners.
+	 *
+	 * @return The number of changed spaces.
+	 */
+	public int getChangeCount() {
+		return changeCount;
+	}
+
+	/**
+	 * Gets the x-coordinate of a changed space.
+	 *
+	 * @param i
+	 *            The number of the change, from 0 to getChangeCount() - 1.
+	 * @return The x-coordinate of the space.
+	 */
+	public int getChangedX(int i) {
+		return changedX[i];
+	}
+
+	/**
+	 * Gets the y-coordinate of a changed space.
+	 *
+	 * @param i
+	 *            The number of the change, from 0 to getChangeCount() - 1.
+	 * @return The y-coordinate of the space.
+	 */
+	public int getChangedY(int i) {
+		return changedY[i];
+	}
+
+	/**
+	 * Gets the size of the feature of a given type that the placement
+	 * completed. A tile's roads all belong to one feature, as do its cities,
+	 * so a placement completes at most one of each.
+	 *
+	 * @param type
+	 *            The type of feature, either ROAD or CITY.
+	 * @return The number of tiles in the completed feature, or 0 if none was
+	 *         completed.
+	 */
+	public int getCompletedSize(QuadrantType type) {
+		return type == QuadrantType.ROAD ? completedRoad : type == QuadrantType.CITY ? completedCity : 0;
+	}
+
+	/**
+	 * Gets the owner of the feature of a given type that the placement
+	 * completed.
+	 *
+	 * @param type
+	 *            The type of feature, either ROAD or CITY.
+	 * @return The owner of the completed feature, or NONE if none was
+	 *         completed.
+	 */
+	public Owner getCompletedOwner(QuadrantType type) {
+		return type == QuadrantType.ROAD ? completedRoadOwner : type == QuadrantType.CITY ? completedCityOwner
+				: Owner.NONE;
+	}
+
+	/**
+	 * Gets the number of points red scored.
+	 *
+	 * @return Red's change in score.
+	 */
+	public int getRedScoreDelta() {
+		return redScoreDelta;
+	}
+
+	/**
+	 * Gets the number of points blue scored.
+	 *
+	 * @return Blue's change in score.
+	 */
+	public int getBlueScoreDelta() {
+		return blueScoreDelta;
+	}
+
+	/**
+	 * Returns a string representation of the result, for debugging.
+	 */
+	public String toString() {
+		return player + " at (" + x + "," + y + "): " + changeCount + " changed, red +" + redScoreDelta
+				+ ", blue +" + blueScoreDelta;
+	}
+
+}
@@ -0,0 +1,24 @@
+/**
+ * This interface defines a player that can choose moves on its own, such as a
+ * computer opponent or a simulated player.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public interface Player {
+
+	/**
+	 * Chooses where to place the next tile. The same player may be asked for
+	 * moves in many games at once from different threads, so implementations
+	 * must be thread-safe. The model should not be changed.
+	 * 
+	 * @param model
+	 *            The game in progress. It is this player's turn.
+	 * @param tile
+	 *            The type of tile to place, in its current rotation. It can
+	 *            legally be placed somewhere on the board.
+	 * @return A legal placement for the tile.
+	 */
+	public Placement choosePlacement(Model model, TileType tile);
+
+}
@@ -54,6 +54,16 @@ public class Quadrant {
 		tile.updateListeners();
 	}
 	
+	/**
+	 * Sets the owner of this quadrant without notifying the tile's listeners.
+	 * The Model uses this to change many quadrants at once, and then notifies
+	 * each changed tile once.
+	 * @param owner The new owner of this quadrant.
+	 */
+	void setOwnerQuietly(Owner owner) {
+		this.owner = owner;
+	}
+	
 	/**
 	 * Constructs a new Quadrant for a given tile with default settings: all
 	 * {@link QuadrantType.GRASS}, owner {@link Owner.NONE}.
@@ -1,4 +1,5 @@
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This enum defines a type of quadrant, either GRASS, ROAD, or CITY.
@@ -11,13 +12,22 @@ public enum QuadrantType {
 
 	private static final QuadrantType[] VALUES = values();
 	private static final int SIZE = VALUES.length;
-	private static final Random RANDOM = new Random();
 
 	/**
-	 * Gets a random value of QuadrantType.
+	 * Gets a random value of QuadrantType, drawn from the current thread's
+	 * generator.
 	 * @return A random QuadrantType value.
 	 */
 	public static QuadrantType randomType() {
-		return VALUES[RANDOM.nextInt(SIZE)];
+		return randomType(ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Gets a random value of QuadrantType.
+	 * @param random The random number generator to draw from.
+	 * @return A random QuadrantType value.
+	 */
+	public static QuadrantType randomType(Random random) {
+		return VALUES[random.nextInt(SIZE)];
 	}
 };
@@ -0,0 +1,33 @@
+/**
+ * A player that places each tile at a random legal spot, in a random legal
+ * rotation. It works on boards of any size, including unbounded ones.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public class RandomPlayer implements Player {
+
+	/**
+	 * A list of legal placements for each thread that asks this player for
+	 * moves, reused for every move.
+	 */
+	private final ThreadLocal<LegalPlacements> placements = new ThreadLocal<LegalPlacements>() {
+		@Override
+		protected LegalPlacements initialValue() {
+			return new LegalPlacements();
+		}
+	};
+
+	/**
+	 * Implements choosePlacement from Player. Every legal placement is equally
+	 * likely. The choice is drawn from the game's generator, so a game between
+	 * random players replays exactly from its seed.
+	 */
+	@Override
+	public Placement choosePlacement(Model model, TileType tile) {
+		LegalPlacements legal = placements.get();
+		model.legalPlacements(tile.getCode(), false, legal);
+		return legal.get(model.getRandom().nextInt(legal.size()));
+	}
+
+}
@@ -0,0 +1,226 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many complete games of Carcassonne without a GUI, spread across all
+ * the processor cores, and collects the results. Used to tune the rules and
+ * computer players.
+ * 
+ * Every game draws its tiles from its own {@linkplain SplitMixRandom}, made
+ * from the simulation's seed and the number of the game. The threads never
+ * share a generator, and each game draws the same tiles whichever thread
+ * plays it, so a game between players that don't search against the clock
+ * replays exactly.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public class Simulation {
+
+	/**
+	 * The number of games a single fork-join task plays before it stops
+	 * splitting its work in half.
+	 */
+	private static final long BATCH_SIZE = 64;
+
+	/**
+	 * The width and height of the game boards.
+	 */
+	private final int boardSize;
+
+	/**
+	 * The player who moves for red.
+	 */
+	private final Player red;
+
+	/**
+	 * The player who moves for blue.
+	 */
+	private final Player blue;
+
+	/**
+	 * The seed that the generator of every game is made from.
+	 */
+	private final long seed;
+
+	/**
+	 * Constructs a new Simulation with a seed taken from the clock.
+	 * 
+	 * @param boardSize
+	 *            The width and height of the game boards. This number must be
+	 *            odd.
+	 * @param red
+	 *            The player who moves for red.
+	 * @param blue
+	 *            The player who moves for blue.
+	 */
+	public Simulation(int boardSize, Player red, Player blue) {
+		this(boardSize, red, blue, System.nanoTime());
+	}
+
+	/**
+	 * Constructs a new Simulation with a given seed.
+	 * 
+	 * @param boardSize
+	 *            The width and height of the game boards. This number must be
+	 *            odd.
+	 * @param red
+	 *            The player who moves for red.
+	 * @param blue
+	 *            The player who moves for blue.
+	 * @param seed
+	 *            The seed that the generator of every game is made from.
+	 */
+	public Simulation(int boardSize, Player red, Player blue, long seed) {
+		this.boardSize = boardSize;
+		this.red = red;
+		this.blue = blue;
+		this.seed = seed;
+	}
+
+	/**
+	 * Gets the seed that the generator of every game is made from.
+	 * 
+	 * @return The seed.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Plays a number of games and collects their results.
+	 * 
+	 * @param games
+	 *            The number of games to play.
+	 * @param threads
+	 *            The number of threads to play them on.
+	 * @return The results of the games.
+	 */
+	public SimulationResult run(long games, int threads) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			long start = System.nanoTime();
+			SimulationResult result = pool.invoke(new GameBatch(0, games));
+			result.setElapsedNanos(System.nanoTime() - start);
+			return result;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Plays a single game to the end.
+	 * 
+	 * @param game
+	 *            The number of the game, which picks its generator.
+	 * @return The finished game.
+	 */
+	public Model playGame(long game) {
+		Model model = new Model(boardSize, true, SplitMixRandom.forStream(seed, game));
+		while (!model.isGameOver()) {
+			TileType tile = model.randomLegalType();
+			Player player = (model.getTurn() == Model.Turn.RED) ? red : blue;
+			player.choosePlacement(model, tile).apply(model, tile);
+		}
+		return model;
+	}
+
+	/**
+	 * A fork-join task that plays a range of games, splitting the range in
+	 * half until it is small enough to play directly.
+	 * 
+	 * @author Ben Visness
+	 * 
+	 */
+	@SuppressWarnings("serial")
+	private class GameBatch extends RecursiveTask<SimulationResult> {
+
+		/**
+		 * The number of the first game in the range.
+		 */
+		private final long from;
+
+		/**
+		 * The number of the game after the last game in the range.
+		 */
+		private final long to;
+
+		/**
+		 * Constructs a new GameBatch.
+		 * 
+		 * @param from
+		 *            The number of the first game in the range.
+		 * @param to
+		 *            The number of the game after the last game in the range.
+		 */
+		public GameBatch(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * Plays the games in the range, or splits the range and plays each
+		 * half in parallel.
+		 */
+		@Override
+		protected SimulationResult compute() {
+			if (to - from <= BATCH_SIZE) {
+				SimulationResult result = new SimulationResult();
+				for (long game = from; game < to; game++) {
+					result.add(playGame(game));
+				}
+				return result;
+			}
+
+			long middle = from + (to - from) / 2;
+			GameBatch left = new GameBatch(from, middle);
+			GameBatch right = new GameBatch(middle, to);
+			left.fork();
+			SimulationResult result = right.compute();
+			result.merge(left.join());
+			return result;
+		}
+
+	}
+
+	/**
+	 * The main method for running simulations from the command line.
+	 * 
+	 * @param args
+	 *            The number of games (default 10000), the board size (default
+	 *            15), the number of threads (default one per processor), and
+	 *            optionally "mcts" or "expectimax" and a number of
+	 *            milliseconds per move to have blue played by an
+	 *            {@linkplain MCTSPlayer} or an {@linkplain ExpectimaxPlayer}.
+	 *            Each move of the computer player is searched on a single
+	 *            thread, so games are still played in parallel. A sixth
+	 *            argument sets the seed, to replay an earlier run.
+	 */
+	public static void main(String[] args) {
+		long games = (args.length > 0) ? Long.parseLong(args[0]) : 10000;
+		int boardSize = (args.length > 1) ? Integer.parseInt(args[1]) : 15;
+		int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		String opponent = (args.length > 3) ? args[3] : "random";
+		long moveMillis = (args.length > 4) ? Long.parseLong(args[4]) : 10;
+		long seed = (args.length > 5) ? Long.parseLong(args[5]) : System.nanoTime();
+
+		Player player = new RandomPlayer();
+		Player blue = player;
+		if (opponent.equals("mcts")) {
+			blue = new MCTSPlayer(boardSize, moveMillis, 1);
+		} else if (opponent.equals("expectimax")) {
+			blue = new ExpectimaxPlayer(boardSize, moveMillis, 1);
+		}
+		Simulation simulation = new Simulation(boardSize, player, blue, seed);
+		System.out.println("Playing " + games + " games on a " + boardSize + " x " + boardSize + " board with " + threads + " threads (seed " + seed + ")...");
+		simulation.run(games, threads).printReport(System.out);
+		if (blue instanceof MCTSPlayer) {
+			MCTSPlayer bot = (MCTSPlayer) blue;
+			System.out.printf("MCTS (blue): %d playouts, %.0f playouts/s per search%n", bot.getPlayouts(),
+					bot.getPlayoutsPerSecond());
+		} else if (blue instanceof ExpectimaxPlayer) {
+			System.out.printf("Expectimax (blue): %d positions searched%n", ((ExpectimaxPlayer) blue).getNodes());
+		}
+	}
+
+}
@@ -0,0 +1,289 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Collects the results of many finished games: win counts, score totals, and
+ * the distribution of each player's score.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public class SimulationResult {
+
+	/**
+	 * The number of games recorded.
+	 */
+	private long games;
+
+	/**
+	 * The number of games red won.
+	 */
+	private long redWins;
+
+	/**
+	 * The number of games blue won.
+	 */
+	private long blueWins;
+
+	/**
+	 * The number of games that were draws.
+	 */
+	private long draws;
+
+	/**
+	 * The sum of red's scores over all games.
+	 */
+	private long redScoreTotal;
+
+	/**
+	 * The sum of blue's scores over all games.
+	 */
+	private long blueScoreTotal;
+
+	/**
+	 * The number of games in which red finished with each score, indexed by
+	 * score.
+	 */
+	private long[] redScores;
+
+	/**
+	 * The number of games in which blue finished with each score, indexed by
+	 * score.
+	 */
+	private long[] blueScores;
+
+	/**
+	 * The wall-clock time taken to play the games, in nanoseconds.
+	 */
+	private long elapsedNanos;
+
+	/**
+	 * Constructs a new, empty SimulationResult.
+	 */
+	public SimulationResult() {
+		redScores = new long[16];
+		blueScores = new long[16];
+	}
+
+	/**
+	 * Records the result of a finished game.
+	 * 
+	 * @param model
+	 *            The finished game.
+	 */
+	public void add(Model model) {
+		int red = model.getRedScore();
+		int blue = model.getBlueScore();
+		games++;
+		if (red > blue) {
+			redWins++;
+		} else if (blue > red) {
+			blueWins++;
+		} else {
+			draws++;
+		}
+		redScoreTotal += red;
+		blueScoreTotal += blue;
+		redScores = count(redScores, red);
+		blueScores = count(blueScores, blue);
+	}
+
+	/**
+	 * Adds all the games recorded in another result to this one.
+	 * 
+	 * @param other
+	 *            The result to add.
+	 */
+	public void merge(SimulationResult other) {
+		games += other.games;
+		redWins += other.redWins;
+		blueWins += other.blueWins;
+		draws += other.draws;
+		redScoreTotal += other.redScoreTotal;
+		blueScoreTotal += other.blueScoreTotal;
+		redScores = mergeCounts(redScores, other.redScores);
+		blueScores = mergeCounts(blueScores, other.blueScores);
+	}
+
+	/**
+	 * Adds one to the count for a score, growing the array if necessary.
+	 * 
+	 * @param counts
+	 *            The counts, indexed by score.
+	 * @param score
+	 *            The score to count.
+	 * @return The counts, which may be a new array.
+	 */
+	private static long[] count(long[] counts, int score) {
+		if (score >= counts.length) {
+			counts = Arrays.copyOf(counts, Math.max(score + 1, 2 * counts.length));
+		}
+		counts[score]++;
+		return counts;
+	}
+
+	/**
+	 * Adds one array of score counts to another.
+	 * 
+	 * @param counts
+	 *            The counts to add to.
+	 * @param other
+	 *            The counts to add.
+	 * @return The sum of the counts, which may be a new array.
+	 */
+	private static long[] mergeCounts(long[] counts, long[] other) {
+		if (other.length > counts.length) {
+			counts = Arrays.copyOf(counts, other.length);
+		}
+		for (int i = 0; i < other.length; i++) {
+			counts[i] += other[i];
+		}
+		return counts;
+	}
+
+	/**
+	 * Gets the number of games recorded.
+	 * 
+	 * @return The number of games.
+	 */
+	public long getGames() {
+		return games;
+	}
+
+	/**
+	 * Gets the number of games red won.
+	 * 
+	 * @return The number of red wins.
+	 */
+	public long getRedWins() {
+		return redWins;
+	}
+
+	/**
+	 * Gets the number of games blue won.
+	 * 
+	 * @return The number of blue wins.
+	 */
+	public long getBlueWins() {
+		return blueWins;
+	}
+
+	/**
+	 * Gets the number of games that were draws.
+	 * 
+	 * @return The number of draws.
+	 */
+	public long getDraws() {
+		return draws;
+	}
+
+	/**
+	 * Gets red's average score.
+	 * 
+	 * @return Red's average score, or 0 if no games were recorded.
+	 */
+	public double getRedMeanScore() {
+		return games == 0 ? 0 : (double) redScoreTotal / games;
+	}
+
+	/**
+	 * Gets blue's average score.
+	 * 
+	 * @return Blue's average score, or 0 if no games were recorded.
+	 */
+	public double getBlueMeanScore() {
+		return games == 0 ? 0 : (double) blueScoreTotal / games;
+	}
+
+	/**
+	 * Gets the number of games in which red finished with a given score.
+	 * 
+	 * @param score
+	 *            The score to look up.
+	 * @return The number of games with that score.
+	 */
+	public long getRedScoreCount(int score) {
+		return score < redScores.length ? redScores[score] : 0;
+	}
+
+	/**
+	 * Gets the number of games in which blue finished with a given score.
+	 * 
+	 * @param score
+	 *            The score to look up.
+	 * @return The number of games with that score.
+	 */
+	public long getBlueScoreCount(int score) {
+		return score < blueScores.length ? blueScores[score] : 0;
+	}
+
+	/**
+	 * Gets the wall-clock time taken to play the games.
+	 * 
+	 * @return The elapsed time, in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Sets the wall-clock time taken to play the games.
+	 * 
+	 * @param elapsedNanos
+	 *            The elapsed time, in nanoseconds.
+	 */
+	public void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Gets the number of games played per second of wall-clock time.
+	 * 
+	 * @return The number of games per second.
+	 */
+	public double getGamesPerSecond() {
+		return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * Gets a percentile of a score distribution.
+	 * 
+	 * @param counts
+	 *            The counts, indexed by score.
+	 * @param fraction
+	 *            The percentile, from 0 to 1.
+	 * @return The smallest score with at least the given fraction of games at
+	 *         or below it.
+	 */
+	private int percentile(long[] counts, double fraction) {
+		long target = (long) Math.ceil(fraction * games);
+		long seen = 0;
+		for (int score = 0; score < counts.length; score++) {
+			seen += counts[score];
+			if (seen >= target && seen > 0) {
+				return score;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Prints a summary of the results.
+	 * 
+	 * @param out
+	 *            The stream to print to.
+	 */
+	public void printReport(PrintStream out) {
+		out.printf("Games:       %d in %.2f s (%.0f games/s)%n", games, elapsedNanos / 1e9, getGamesPerSecond());
+		out.printf("Red wins:    %d (%.2f%%)%n", redWins, 100.0 * redWins / Math.max(games, 1));
+		out.printf("Blue wins:   %d (%.2f%%)%n", blueWins, 100.0 * blueWins / Math.max(games, 1));
+		out.printf("Draws:       %d (%.2f%%)%n", draws, 100.0 * draws / Math.max(games, 1));
+		out.printf("Red score:   mean %.2f, min/p10/median/p90/max %d/%d/%d/%d/%d%n", getRedMeanScore(),
+				percentile(redScores, 0), percentile(redScores, 0.1), percentile(redScores, 0.5),
+				percentile(redScores, 0.9), percentile(redScores, 1));
+		out.printf("Blue score:  mean %.2f, min/p10/median/p90/max %d/%d/%d/%d/%d%n", getBlueMeanScore(),
+				percentile(blueScores, 0), percentile(blueScores, 0.1), percentile(blueScores, 0.5),
+				percentile(blueScores, 0.9), percentile(blueScores, 1));
+	}
+
+}
@@ -0,0 +1,111 @@
+import java.util.Random;
+
+/**
+ * A fast random number generator for a single game or thread, using the
+ * SplitMix64 algorithm. Unlike java.util.Random, its state is a plain field
+ * rather than an atomic one, so it costs nothing to draw from and must not be
+ * shared between threads. Instead, each thread or game gets its own generator,
+ * made with {@link #split()} or {@link #forStream(long, long)}.
+ * <p>
+ * It extends Random so it can be passed to anything that takes one, but
+ * generators with the same seed only give the same numbers if they are both
+ * SplitMixRandoms.
+ *
+ * @author Ben Visness
+ *
+ */
+@SuppressWarnings("serial")
+public class SplitMixRandom extends Random {
+
+	/**
+	 * The amount the state advances by for every number drawn. (The golden
+	 * ratio, as a 64-bit fraction.)
+	 */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * The current state of the generator.
+	 */
+	private long state;
+
+	/**
+	 * Constructs a new SplitMixRandom with a given seed. Generators with the
+	 * same seed draw the same numbers.
+	 *
+	 * @param seed
+	 *            The seed.
+	 */
+	public SplitMixRandom(long seed) {
+		super(0);
+		state = seed;
+	}
+
+	/**
+	 * Constructs a new generator for one of many independent streams of
+	 * numbers from the same seed, such as one game of a simulation. The
+	 * stream depends only on the seed and the index, not on the order the
+	 * streams are made in, so each game replays the same however many threads
+	 * play them.
+	 *
+	 * @param seed
+	 *            The seed shared by all the streams.
+	 * @param index
+	 *            The number of the stream.
+	 * @return A new generator for the stream.
+	 */
+	public static SplitMixRandom forStream(long seed, long index) {
+		return new SplitMixRandom(mix(seed + mix(index * GOLDEN_GAMMA)));
+	}
+
+	/**
+	 * Constructs a new generator from the next number of this one. The two
+	 * generators then draw different numbers, and each can be given to a
+	 * different thread.
+	 *
+	 * @return A new generator.
+	 */
+	public SplitMixRandom split() {
+		return new SplitMixRandom(mix(nextLong()));
+	}
+
+	/**
+	 * Restarts the generator from a seed. Called by the constructor of
+	 * Random, before the state is set for the first time.
+	 */
+	@Override
+	public void setSeed(long seed) {
+		super.setSeed(seed);
+		state = seed;
+	}
+
+	/**
+	 * Implements nextLong from Random, drawing 64 bits at once.
+	 */
+	@Override
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+		return mix(state);
+	}
+
+	/**
+	 * Implements next from Random, which all its other methods draw from.
+	 */
+	@Override
+	protected int next(int bits) {
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	/**
+	 * Scrambles the bits of a number with the SplitMix64 finalizer.
+	 *
+	 * @param z
+	 *            The number to scramble.
+	 * @return The scrambled number.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -0,0 +1,166 @@
+/**
+ * Static helpers for the eight symmetries of a square board: the four
+ * rotations, each with or without a mirror image. A symmetry is numbered from
+ * 0 to 7. Symmetry t mirrors the board left to right if t is 4 or more, then
+ * rotates it 90 degrees clockwise t % 4 times, about a fixed center space.
+ * Symmetry 0 leaves everything where it is.
+ * <p>
+ * The tiles on the board are turned along with it, so a position and its
+ * image under any symmetry play out the same way.
+ *
+ * @author Ben Visness
+ *
+ * @see CanonicalKey
+ */
+public final class Symmetry {
+
+	/**
+	 * The number of symmetries.
+	 */
+	public static final int COUNT = 8;
+
+	/**
+	 * The symmetry that changes nothing.
+	 */
+	public static final int IDENTITY = 0;
+
+	/**
+	 * This class only has static methods.
+	 */
+	private Symmetry() {
+	}
+
+	/**
+	 * Checks whether a symmetry mirrors the board.
+	 *
+	 * @param symmetry
+	 *            The symmetry, from 0 to 7.
+	 * @return Whether the symmetry mirrors the board.
+	 */
+	public static boolean isMirror(int symmetry) {
+		return symmetry >= 4;
+	}
+
+	/**
+	 * Gets the symmetry that undoes a given one.
+	 *
+	 * @param symmetry
+	 *            The symmetry, from 0 to 7.
+	 * @return The inverse symmetry.
+	 */
+	public static int inverse(int symmetry) {
+		// Every mirror image is its own inverse.
+		if (isMirror(symmetry)) {
+			return symmetry;
+		}
+		return (4 - symmetry) & 3;
+	}
+
+	/**
+	 * Gets the code of a tile after mirroring it left to right, which swaps
+	 * its east and west sides.
+	 *
+	 * @param code
+	 *            The original {@linkplain TileCode}.
+	 * @return The mirrored tile code.
+	 */
+	public static int mirror(int code) {
+		return (code & 0x33) | ((code & 0x0C) << 4) | ((code & 0xC0) >>> 4);
+	}
+
+	/**
+	 * Gets the code of a tile after a symmetry is applied to it.
+	 *
+	 * @param code
+	 *            The original {@linkplain TileCode}.
+	 * @param symmetry
+	 *            The symmetry, from 0 to 7.
+	 * @return The transformed tile code.
+	 */
+	public static int transformCode(int code, int symmetry) {
+		if (isMirror(symmetry)) {
+			code = mirror(code);
+		}
+		for (int i = 0; i < (symmetry & 3); i++) {
+			code = TileCode.rotateRight(code);
+		}
+		return code;
+	}
+
+	/**
+	 * Gets the number of clockwise rotations that give the same tile after a
+	 * symmetry as a number of rotations did before it. Mirroring a tile
+	 * reverses which way it turns.
+	 *
+	 * @param rotations
+	 *            The number of clockwise rotations, from 0 to 3.
+	 * @param symmetry
+	 *            The symmetry, from 0 to 7.
+	 * @return The transformed number of rotations.
+	 */
+	public static int transformRotations(int rotations, int symmetry) {
+		if (isMirror(symmetry)) {
+			return (4 - rotations) & 3;
+		}
+		return rotations;
+	}
+
+	/**
+	 * Gets the x-coordinate of a space after a symmetry is applied to the
+	 * board.
+	 *
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 * @param center
+	 *            The x- and y-coordinate of the center space.
+	 * @param symmetry
+	 *            The symmetry, from 0 to 7.
+	 * @return The transformed x-coordinate.
+	 */
+	public static int transformX(int x, int y, int center, int symmetry) {
+		int dx = isMirror(symmetry) ? center - x : x - center;
+		int dy = y - center;
+		switch (symmetry & 3) {
+		case 1:
+			return center - dy;
+		case 2:
+			return center - dx;
+		case 3:
+			return center + dy;
+		default:
+			return center + dx;
+		}
+	}
+
+	/**
+	 * Gets the y-coordinate of a space after a symmetry is applied to the
+	 * board.
+	 *
+	 * @param x
+	 *            The x-coordinate of the space.
+	 * @param y
+	 *            The y-coordinate of the space.
+	 * @param center
+	 *            The x- and y-coordinate of the center space.
+	 * @param symmetry
+	 *            The symmetry, from 0 to 7.
+	 * @return The transformed y-coordinate.
+	 */
+	public static int transformY(int x, int y, int center, int symmetry) {
+		int dx = isMirror(symmetry) ? center - x : x - center;
+		int dy = y - center;
+		switch (symmetry & 3) {
+		case 1:
+			return center + dx;
+		case 2:
+			return center - dy;
+		case 3:
+			return center - dx;
+		default:
+			return center + dy;
+		}
+	}
+
+}
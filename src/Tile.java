@@ -1,5 +1,7 @@
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Defines a tile for Carcassonne.
@@ -36,6 +38,8 @@ public class Tile {
 	
 	/**
 	 * A set of update listeners for this tile. A set is chosen rather than a 
+	 * list so a listener can't be added twice. It is null until the first
+	 * listener is added, since most tiles never have any.
 	 */
 	private HashSet<TileUpdateListener> listeners;
 
@@ -70,14 +74,12 @@ public class Tile {
 	 * @return Whether the tile has a quadrant of the given type.
 	 */
 	public boolean hasQuadrantType(QuadrantType type) {
-		boolean hasType = false;
 		for (int side = 0; side < 4; side++) {
-			if (getQuadrant(side).getType() == type) {
-				hasType = true;
-				break;
+			if (quadrants[side].getType() == type) {
+				return true;
 			}
 		}
-		return hasType;
+		return false;
 	}
 
 	/**
@@ -90,8 +92,8 @@ public class Tile {
 	 */
 	public Owner getQuadrantTypeOwner(QuadrantType type) {
 		for (int side = 0; side < 4; side++) {
-			if (getQuadrant(side).getType() == type) {
-				return getQuadrant(side).getOwner(); // We can return the first owner we see
+			if (quadrants[side].getType() == type) {
+				return quadrants[side].getOwner(); // We can return the first owner we see
 													 // because all roads or cities will have
 													 // the same owner
 			}
@@ -107,19 +109,29 @@ public class Tile {
 		for (int i = 0; i < 4; i++) {
 			quadrants[i] = new Quadrant(this);
 		}
-		
-		listeners = new HashSet<TileUpdateListener>();
 	}
 
 	/**
-	 * Constructs a new tile with all random quadrants.
+	 * Constructs a new tile with all random quadrants, drawn from the current
+	 * thread's generator.
 	 * 
 	 * @return A randomized Tile object.
 	 */
 	public static Tile randomTile() {
+		return randomTile(ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Constructs a new tile with all random quadrants.
+	 * 
+	 * @param random
+	 *            The random number generator to draw from.
+	 * @return A randomized Tile object.
+	 */
+	public static Tile randomTile(Random random) {
 		Tile newTile = new Tile();
 		for (int i = 0; i < 4; i++) {
-			newTile.quadrants[i].setType(QuadrantType.randomType());
+			newTile.quadrants[i].setType(QuadrantType.randomType(random));
 		}
 		return newTile;
 	}
@@ -180,6 +192,9 @@ public class Tile {
 	 * @see TileUpdateListener
 	 */
 	public void addUpdateListener(TileUpdateListener listener) {
+		if (listeners == null) {
+			listeners = new HashSet<TileUpdateListener>();
+		}
 		listeners.add(listener);
 	}
 	
@@ -191,13 +206,18 @@ public class Tile {
 	 * @see TileUpdateListener
 	 */
 	public void removeUpdateListener(TileUpdateListener listener) {
-		listeners.remove(listener);
+		if (listeners != null) {
+			listeners.remove(listener);
+		}
 	}
 	
 	/**
 	 * Tells all the listeners to update.
 	 */
 	public void updateListeners() {
+		if (listeners == null || listeners.isEmpty()) {
+			return;
+		}
 		Iterator<TileUpdateListener> itr = listeners.iterator();
 		while (itr.hasNext()) {
 			itr.next().tileUpdated();
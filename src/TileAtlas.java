@@ -0,0 +1,410 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * All of the game's images, packed into one image resource on the classpath.
+ * The atlas is loaded once, and every image is a region of it. An index
+ * resource gives the name and bounds of each region; it is written along with
+ * the atlas by {@linkplain TileAtlasBuilder}.
+ *
+ * Only some tiles have an image of their own. The atlas also holds a table
+ * from every {@linkplain TileCode} to the image it is drawn from and how that
+ * image must be rotated and flipped, so drawing a tile never has to search
+ * for its image. Tile images must be square.
+ *
+ * @author Ben Visness
+ *
+ */
+public class TileAtlas {
+
+	/**
+	 * The classpath location of the atlas image.
+	 */
+	public static final String IMAGE_RESOURCE = "/tiles.png";
+
+	/**
+	 * The classpath location of the atlas index.
+	 */
+	public static final String INDEX_RESOURCE = "/tiles.txt";
+
+	/**
+	 * The letters used for each quadrant type in image names, indexed by
+	 * ordinal.
+	 */
+	private static final char[] TYPE_LETTERS = { 'G', 'R', 'C' };
+
+	/**
+	 * The atlas loaded from the classpath, or null if it hasn't been loaded
+	 * yet.
+	 */
+	private static TileAtlas defaultAtlas;
+
+	/**
+	 * The images in the atlas, by name.
+	 */
+	private final Map<String, BufferedImage> images;
+
+	/**
+	 * The pixels of the atlas, in ARGB format, one row after another.
+	 */
+	private final int[] pixels;
+
+	/**
+	 * The width of the atlas, in pixels.
+	 */
+	private final int atlasWidth;
+
+	/**
+	 * The image each tile is drawn from, indexed by tile code, or null if
+	 * there is no image for the tile.
+	 */
+	private final BufferedImage[] tileImages = new BufferedImage[256];
+
+	/**
+	 * The index in {@link #pixels} of the top left corner of each tile's
+	 * image, indexed by tile code.
+	 */
+	private final int[] tileOffsets = new int[256];
+
+	/**
+	 * The number of times each tile's image must be rotated 90 degrees
+	 * counterclockwise, indexed by tile code.
+	 */
+	private final byte[] tileRotations = new byte[256];
+
+	/**
+	 * Whether each tile's image must be flipped horizontally, indexed by tile
+	 * code. The image is flipped after it is rotated.
+	 */
+	private final boolean[] tileFlips = new boolean[256];
+
+	/**
+	 * Constructs a new TileAtlas from an atlas image and its index.
+	 *
+	 * @param atlas
+	 *            The atlas image.
+	 * @param index
+	 *            The index of the atlas. Each line holds the name, x, y,
+	 *            width, and height of one region, separated by spaces. Blank
+	 *            lines and lines starting with # are ignored.
+	 * @throws IOException
+	 *             if the index can't be read or is malformed.
+	 */
+	public TileAtlas(BufferedImage atlas, BufferedReader index) throws IOException {
+		atlas = toIntARGB(atlas);
+		pixels = ((DataBufferInt) atlas.getRaster().getDataBuffer()).getData();
+		atlasWidth = atlas.getWidth();
+
+		images = new HashMap<String, BufferedImage>();
+		Map<String, Integer> offsets = new HashMap<String, Integer>();
+		String line;
+		while ((line = index.readLine()) != null) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+
+			String[] fields = line.split("\\s+");
+			if (fields.length != 5) {
+				throw new IOException("Malformed atlas index line: " + line);
+			}
+			try {
+				int x = Integer.parseInt(fields[1]);
+				int y = Integer.parseInt(fields[2]);
+				int width = Integer.parseInt(fields[3]);
+				int height = Integer.parseInt(fields[4]);
+				images.put(fields[0], atlas.getSubimage(x, y, width, height));
+				offsets.put(fields[0], y * atlasWidth + x);
+			} catch (RuntimeException e) {
+				throw new IOException("Malformed atlas index line: " + line, e);
+			}
+		}
+
+		buildTileTable(offsets);
+	}
+
+	/**
+	 * Converts an image to the ARGB format, so its pixels can be read
+	 * directly.
+	 *
+	 * @param img
+	 *            The image to convert.
+	 * @return The image itself if it is already in ARGB format, or an ARGB
+	 *         copy of it.
+	 */
+	private static BufferedImage toIntARGB(BufferedImage img) {
+		if (img.getType() == BufferedImage.TYPE_INT_ARGB) {
+			return img;
+		}
+
+		int width = img.getWidth();
+		int height = img.getHeight();
+		BufferedImage converted = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		converted.setRGB(0, 0, width, height, img.getRGB(0, 0, width, height, null, 0, width), 0, width);
+		return converted;
+	}
+
+	/**
+	 * Gets the atlas from the classpath, loading it the first time this is
+	 * called.
+	 *
+	 * @return The shared TileAtlas.
+	 * @throws IOException
+	 *             if the atlas resources are missing or can't be read.
+	 */
+	public static synchronized TileAtlas getDefault() throws IOException {
+		if (defaultAtlas == null) {
+			defaultAtlas = load(IMAGE_RESOURCE, INDEX_RESOURCE);
+		}
+		return defaultAtlas;
+	}
+
+	/**
+	 * Loads an atlas from the classpath.
+	 *
+	 * @param imageResource
+	 *            The location of the atlas image.
+	 * @param indexResource
+	 *            The location of the atlas index.
+	 * @return The loaded atlas.
+	 * @throws IOException
+	 *             if the resources are missing or can't be read.
+	 */
+	public static TileAtlas load(String imageResource, String indexResource) throws IOException {
+		BufferedImage atlas;
+		InputStream imageStream = openResource(imageResource);
+		try {
+			atlas = ImageIO.read(imageStream);
+		} finally {
+			imageStream.close();
+		}
+		if (atlas == null) {
+			throw new IOException("Not an image: " + imageResource);
+		}
+
+		BufferedReader index = new BufferedReader(new InputStreamReader(openResource(indexResource), "UTF-8"));
+		try {
+			return new TileAtlas(atlas, index);
+		} finally {
+			index.close();
+		}
+	}
+
+	/**
+	 * Opens a resource on the classpath.
+	 *
+	 * @param name
+	 *            The location of the resource.
+	 * @return A stream of the resource's contents.
+	 * @throws IOException
+	 *             if the resource doesn't exist.
+	 */
+	private static InputStream openResource(String name) throws IOException {
+		InputStream stream = TileAtlas.class.getResourceAsStream(name);
+		if (stream == null) {
+			throw new IOException("Missing resource: " + name);
+		}
+		return stream;
+	}
+
+	/**
+	 * Fills the table of tile images. Each tile uses the first image found by
+	 * rotating the tile clockwise up to three times, then flipping it and
+	 * rotating it again.
+	 *
+	 * @param offsets
+	 *            The index in {@link #pixels} of the top left corner of each
+	 *            image, by name.
+	 */
+	private void buildTileTable(Map<String, Integer> offsets) {
+		for (int code = 0; code < 256; code++) {
+			if (!isValidCode(code)) {
+				continue;
+			}
+
+			int candidate = code;
+			search: for (int flips = 0; flips < 2; flips++) {
+				for (int rotations = 0; rotations < 4; rotations++) {
+					String name = tileName(candidate);
+					BufferedImage image = images.get(name);
+					if (image != null && image.getWidth() == image.getHeight()) {
+						tileImages[code] = image;
+						tileOffsets[code] = offsets.get(name);
+						tileRotations[code] = (byte) rotations;
+						tileFlips[code] = flips > 0;
+						break search;
+					}
+					candidate = TileCode.rotateRight(candidate);
+				}
+				candidate = flip(candidate);
+			}
+		}
+	}
+
+	/**
+	 * Gets an image in the atlas by name. The image shares its pixels with
+	 * the atlas, so it must not be changed.
+	 *
+	 * @param name
+	 *            The name of the image, which is its file name without the
+	 *            extension.
+	 * @return The image.
+	 * @throws IllegalArgumentException
+	 *             if there is no image with the given name.
+	 */
+	public BufferedImage getImage(String name) {
+		BufferedImage image = images.get(name);
+		if (image == null) {
+			throw new IllegalArgumentException("No image named " + name);
+		}
+		return image;
+	}
+
+	/**
+	 * Gets the image a tile is drawn from. The image shares its pixels with
+	 * the atlas, so it must not be changed.
+	 *
+	 * @param code
+	 *            The {@linkplain TileCode} of the tile.
+	 * @return The image, or null if there is no image for the tile.
+	 * @see #copyTilePixels(int, int[])
+	 * @see #getTileRotations(int)
+	 * @see #isTileFlipped(int)
+	 */
+	public BufferedImage getTileImage(int code) {
+		return tileImages[code];
+	}
+
+	/**
+	 * Copies the pixels of a tile's image, already rotated and flipped to
+	 * match the tile, in ARGB format.
+	 *
+	 * @param code
+	 *            The {@linkplain TileCode} of the tile. There must be an image
+	 *            for the tile.
+	 * @param dest
+	 *            The array to copy the pixels into, one row after another. It
+	 *            must hold at least size * size pixels, where size is the
+	 *            width of the tile's image.
+	 */
+	public void copyTilePixels(int code, int[] dest) {
+		int size = tileImages[code].getWidth();
+		int last = size - 1;
+
+		// The destination x and y are each a linear function of the source
+		// x and y: origin + stepX * x + stepY * y.
+		int originX = 0, stepXX = 1, stepYX = 0;
+		int originY = 0, stepXY = 0, stepYY = 1;
+		for (int i = 0; i < tileRotations[code]; i++) {
+			// Rotating counterclockwise moves (x, y) to (y, last - x).
+			int tmpOrigin = originX, tmpStepX = stepXX, tmpStepY = stepYX;
+			originX = originY;
+			stepXX = stepXY;
+			stepYX = stepYY;
+			originY = last - tmpOrigin;
+			stepXY = -tmpStepX;
+			stepYY = -tmpStepY;
+		}
+		if (tileFlips[code]) {
+			// Flipping horizontally moves (x, y) to (last - x, y).
+			originX = last - originX;
+			stepXX = -stepXX;
+			stepYX = -stepYX;
+		}
+
+		int destRow = originX + originY * size;
+		int destStepX = stepXX + stepXY * size;
+		int destStepY = stepYX + stepYY * size;
+		int srcRow = tileOffsets[code];
+		for (int y = 0; y < size; y++) {
+			int src = srcRow;
+			int destIndex = destRow;
+			for (int x = 0; x < size; x++) {
+				dest[destIndex] = pixels[src++];
+				destIndex += destStepX;
+			}
+			srcRow += atlasWidth;
+			destRow += destStepY;
+		}
+	}
+
+	/**
+	 * Gets the number of times a tile's image must be rotated 90 degrees
+	 * counterclockwise to match the tile.
+	 *
+	 * @param code
+	 *            The {@linkplain TileCode} of the tile.
+	 * @return The number of rotations, from 0 to 3.
+	 */
+	public int getTileRotations(int code) {
+		return tileRotations[code];
+	}
+
+	/**
+	 * Checks whether a tile's image must be flipped horizontally, after it is
+	 * rotated, to match the tile.
+	 *
+	 * @param code
+	 *            The {@linkplain TileCode} of the tile.
+	 * @return Whether the image must be flipped.
+	 */
+	public boolean isTileFlipped(int code) {
+		return tileFlips[code];
+	}
+
+	/**
+	 * Gets the image name of a tile code, with one letter for each side
+	 * starting at the north: G for grass, R for road, and C for city.
+	 *
+	 * @param code
+	 *            The {@linkplain TileCode} of the tile.
+	 * @return The image name of the tile.
+	 */
+	public static String tileName(int code) {
+		char[] name = new char[4];
+		for (int side = 0; side < 4; side++) {
+			name[side] = TYPE_LETTERS[TileCode.sideType(code, side)];
+		}
+		return new String(name);
+	}
+
+	/**
+	 * Checks whether every side of a tile code holds a quadrant type.
+	 *
+	 * @param code
+	 *            The code to check.
+	 * @return Whether the code belongs to a tile.
+	 */
+	private static boolean isValidCode(int code) {
+		for (int side = 0; side < 4; side++) {
+			if (TileCode.sideType(code, side) >= TYPE_LETTERS.length) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the code of a tile after flipping it horizontally, which swaps its
+	 * east and west sides.
+	 *
+	 * @param code
+	 *            The original tile code.
+	 * @return The flipped tile code.
+	 */
+	private static int flip(int code) {
+		int east = TileCode.sideType(code, Tile.EAST);
+		int west = TileCode.sideType(code, Tile.WEST);
+		code &= ~((3 << (2 * Tile.EAST)) | (3 << (2 * Tile.WEST)));
+		return code | (west << (2 * Tile.EAST)) | (east << (2 * Tile.WEST));
+	}
+
+}
@@ -0,0 +1,238 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Packs the loose images in the images folder into the atlas image and index
+ * that {@linkplain TileAtlas} loads. Run this whenever an image changes:
+ *
+ * <pre>
+ * java TileAtlasBuilder [imageFolder] [outputFolder]
+ * </pre>
+ *
+ * The defaults are "images" and "res", the resource folder on the classpath.
+ *
+ * @author Ben Visness
+ *
+ */
+public class TileAtlasBuilder {
+
+	/**
+	 * The maximum width of the atlas, in pixels. Images are packed into rows
+	 * no wider than this.
+	 */
+	private static final int MAX_WIDTH = 2048;
+
+	/**
+	 * One image to pack into the atlas.
+	 */
+	private static class Region {
+
+		/**
+		 * The name of the image, which is its file name without the extension.
+		 */
+		private final String name;
+
+		/**
+		 * The image.
+		 */
+		private final BufferedImage image;
+
+		/**
+		 * The x-coordinate of the image in the atlas.
+		 */
+		private int x;
+
+		/**
+		 * The y-coordinate of the image in the atlas.
+		 */
+		private int y;
+
+		/**
+		 * Constructs a new Region that hasn't been placed yet.
+		 *
+		 * @param name
+		 *            The name of the image.
+		 * @param image
+		 *            The image.
+		 */
+		private Region(String name, BufferedImage image) {
+			this.name = name;
+			this.image = image;
+		}
+
+	}
+
+	/**
+	 * This class only has static methods.
+	 */
+	private TileAtlasBuilder() {
+	}
+
+	/**
+	 * Reads every PNG image in a folder, in parallel.
+	 *
+	 * @param folder
+	 *            The folder to read.
+	 * @return The images, sorted by name.
+	 * @throws IOException
+	 *             if the folder or any image can't be read.
+	 */
+	private static List<Region> readImages(File folder) throws IOException {
+		File[] files = folder.listFiles();
+		if (files == null) {
+			throw new IOException("Not a folder: " + folder);
+		}
+		Arrays.sort(files);
+
+		ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			List<String> names = new ArrayList<String>();
+			List<Future<BufferedImage>> images = new ArrayList<Future<BufferedImage>>();
+			for (final File file : files) {
+				String fileName = file.getName();
+				if (!file.isFile() || !fileName.endsWith(".png")) {
+					continue;
+				}
+				names.add(fileName.substring(0, fileName.length() - ".png".length()));
+				images.add(pool.submit(new Callable<BufferedImage>() {
+					@Override
+					public BufferedImage call() throws IOException {
+						BufferedImage image = ImageIO.read(file);
+						if (image == null) {
+							throw new IOException("Not an image: " + file);
+						}
+						return image;
+					}
+				}));
+			}
+
+			List<Region> regions = new ArrayList<Region>();
+			for (int i = 0; i < names.size(); i++) {
+				regions.add(new Region(names.get(i), images.get(i).get()));
+			}
+			return regions;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading images", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Couldn't read image", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Places regions into rows, tallest first, and builds the atlas image.
+	 *
+	 * @param regions
+	 *            The regions to place. Their positions are set by this
+	 *            method.
+	 * @return The atlas image.
+	 */
+	private static BufferedImage pack(List<Region> regions) {
+		List<Region> sorted = new ArrayList<Region>(regions);
+		Collections.sort(sorted, new Comparator<Region>() {
+			@Override
+			public int compare(Region a, Region b) {
+				int byHeight = b.image.getHeight() - a.image.getHeight();
+				return byHeight != 0 ? byHeight : a.name.compareTo(b.name);
+			}
+		});
+
+		int x = 0;
+		int y = 0;
+		int rowHeight = 0;
+		int width = 0;
+		for (Region region : sorted) {
+			if (x > 0 && x + region.image.getWidth() > MAX_WIDTH) {
+				x = 0;
+				y += rowHeight;
+				rowHeight = 0;
+			}
+			region.x = x;
+			region.y = y;
+			x += region.image.getWidth();
+			rowHeight = Math.max(rowHeight, region.image.getHeight());
+			width = Math.max(width, x);
+		}
+
+		BufferedImage atlas = new BufferedImage(Math.max(width, 1), Math.max(y + rowHeight, 1),
+				BufferedImage.TYPE_INT_ARGB);
+		for (Region region : sorted) {
+			// Copy the exact pixels, rather than drawing, so nothing is blended.
+			int w = region.image.getWidth();
+			int h = region.image.getHeight();
+			int[] pixels = region.image.getRGB(0, 0, w, h, null, 0, w);
+			atlas.setRGB(region.x, region.y, w, h, pixels, 0, w);
+		}
+		return atlas;
+	}
+
+	/**
+	 * Writes the atlas index for placed regions.
+	 *
+	 * @param regions
+	 *            The placed regions.
+	 * @param file
+	 *            The file to write.
+	 * @throws IOException
+	 *             if the file can't be written.
+	 */
+	private static void writeIndex(List<Region> regions, File file) throws IOException {
+		PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			out.println("# Generated by TileAtlasBuilder. Each line is: name x y width height");
+			for (Region region : regions) {
+				out.println(region.name + " " + region.x + " " + region.y + " " + region.image.getWidth() + " "
+						+ region.image.getHeight());
+			}
+		} finally {
+			out.close();
+		}
+		if (out.checkError()) {
+			throw new IOException("Couldn't write " + file);
+		}
+	}
+
+	/**
+	 * Builds the atlas.
+	 *
+	 * @param args
+	 *            The image folder and the output folder, both optional.
+	 * @throws IOException
+	 *             if the images can't be read or the atlas can't be written.
+	 */
+	public static void main(String[] args) throws IOException {
+		File imageFolder = new File(args.length > 0 ? args[0] : "images");
+		File outputFolder = new File(args.length > 1 ? args[1] : "res");
+
+		List<Region> regions = readImages(imageFolder);
+		BufferedImage atlas = pack(regions);
+
+		if (!outputFolder.isDirectory() && !outputFolder.mkdirs()) {
+			throw new IOException("Couldn't create " + outputFolder);
+		}
+		ImageIO.write(atlas, "png", new File(outputFolder, new File(TileAtlas.IMAGE_RESOURCE).getName()));
+		writeIndex(regions, new File(outputFolder, new File(TileAtlas.INDEX_RESOURCE).getName()));
+
+		System.out.println("Packed " + regions.size() + " images into a " + atlas.getWidth() + " x "
+				+ atlas.getHeight() + " atlas");
+	}
+
+}
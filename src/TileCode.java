@@ -0,0 +1,220 @@
+import java.util.Arrays;
+
+/**
+ * Static helpers for packing the quadrant types of a {@linkplain Tile} into a
+ * single small integer. Each side takes two bits, holding the ordinal of its
+ * {@linkplain QuadrantType}, with the north side in the lowest bits.
+ * <p>
+ * The 81 codes fall into 24 shapes: sets of codes that are rotations of each
+ * other. A player can turn a tile to any code of its shape, so whether a tile
+ * can be placed anywhere depends only on its shape.
+ *
+ * @author Ben Visness
+ *
+ */
+public final class TileCode {
+
+	/**
+	 * A code that no tile can have, used to mark empty spaces on a packed
+	 * board. (The value 3 is not a valid QuadrantType on any side.)
+	 */
+	public static final int EMPTY = 0xFF;
+
+	/**
+	 * The number of shapes of tile.
+	 */
+	public static final int SHAPE_COUNT = 24;
+
+	/**
+	 * The values of QuadrantType, indexed by ordinal.
+	 */
+	private static final QuadrantType[] TYPES = QuadrantType.values();
+
+	/**
+	 * The shape of each tile code, or -1 for values that aren't tile codes.
+	 */
+	private static final byte[] SHAPES = new byte[256];
+
+	/**
+	 * The smallest code of each shape.
+	 */
+	private static final int[] SHAPE_CODES = new int[SHAPE_COUNT];
+
+	/**
+	 * The number of distinct codes of each shape: 1, 2, or 4.
+	 */
+	private static final int[] SHAPE_SIZES = new int[SHAPE_COUNT];
+
+	/**
+	 * The quadrant types on each tile code, indexed by code. Bit t of each
+	 * entry is set if some side has the QuadrantType with ordinal t.
+	 */
+	private static final byte[] TYPE_MASKS = new byte[256];
+
+	static {
+		for (int code = 0; code < 256; code++) {
+			for (int side = 0; side < 4; side++) {
+				TYPE_MASKS[code] |= 1 << sideType(code, side);
+			}
+		}
+
+		Arrays.fill(SHAPES, (byte) -1);
+		// Shapes are numbered in order of their smallest code's types, read
+		// as a base-3 number with the north side last.
+		int shapes = 0;
+		for (int types = 0; types < 81; types++) {
+			int code = 0;
+			for (int side = 0, t = types; side < 4; side++, t /= 3) {
+				code |= (t % 3) << (2 * side);
+			}
+			if (SHAPES[code] >= 0) {
+				continue;
+			}
+			SHAPE_CODES[shapes] = code;
+			int rotated = code;
+			do {
+				SHAPES[rotated] = (byte) shapes;
+				SHAPE_SIZES[shapes]++;
+				rotated = rotateRight(rotated);
+			} while (rotated != code);
+			shapes++;
+		}
+	}
+
+	/**
+	 * This class only has static methods.
+	 */
+	private TileCode() {
+	}
+
+	/**
+	 * Gets the code for the current quadrant types of a tile.
+	 *
+	 * @param tile
+	 *            The tile to encode.
+	 * @return The code for the tile.
+	 */
+	public static int of(Tile tile) {
+		int code = 0;
+		for (int side = 0; side < 4; side++) {
+			code |= tile.getQuadrant(side).getType().ordinal() << (2 * side);
+		}
+		return code;
+	}
+
+	/**
+	 * Constructs a new tile with the quadrant types of a given code.
+	 *
+	 * @param code
+	 *            The code of the tile.
+	 * @return A new Tile object with unowned quadrants.
+	 */
+	public static Tile toTile(int code) {
+		Tile tile = new Tile();
+		for (int side = 0; side < 4; side++) {
+			tile.getQuadrant(side).setType(getType(code, side));
+		}
+		return tile;
+	}
+
+	/**
+	 * Gets the ordinal of the quadrant type on one side of a tile code.
+	 *
+	 * @param code
+	 *            The tile code.
+	 * @param side
+	 *            The side of the tile. Using the constants defined in
+	 *            {@linkplain Tile} is recommended.
+	 * @return The ordinal of the {@linkplain QuadrantType} on the given side.
+	 */
+	public static int sideType(int code, int side) {
+		return (code >>> (2 * side)) & 3;
+	}
+
+	/**
+	 * Gets the quadrant type on one side of a tile code.
+	 *
+	 * @param code
+	 *            The tile code.
+	 * @param side
+	 *            The side of the tile. Using the constants defined in
+	 *            {@linkplain Tile} is recommended.
+	 * @return The {@linkplain QuadrantType} on the given side.
+	 */
+	public static QuadrantType getType(int code, int side) {
+		return TYPES[sideType(code, side)];
+	}
+
+	/**
+	 * Checks whether a tile code has a quadrant of a given type.
+	 *
+	 * @param code
+	 *            The tile code.
+	 * @param type
+	 *            The type of quadrant to check for.
+	 * @return Whether the code has a quadrant of the given type.
+	 */
+	public static boolean hasType(int code, QuadrantType type) {
+		return (TYPE_MASKS[code] & (1 << type.ordinal())) != 0;
+	}
+
+	/**
+	 * Gets the code of a tile after rotating it 90 degrees clockwise.
+	 *
+	 * @param code
+	 *            The original tile code.
+	 * @return The rotated tile code.
+	 * @see Tile#rotateRight()
+	 */
+	public static int rotateRight(int code) {
+		return ((code << 2) | (code >>> 6)) & 0xFF;
+	}
+
+	/**
+	 * Gets the shape of a tile code.
+	 * 
+	 * @param code
+	 *            The tile code.
+	 * @return The shape, from 0 to SHAPE_COUNT - 1.
+	 */
+	public static int shape(int code) {
+		return SHAPES[code];
+	}
+
+	/**
+	 * Gets the smallest tile code of a shape. Rotating it clockwise from 0 to
+	 * shapeSize(shape) - 1 times gives each code of the shape once.
+	 * 
+	 * @param shape
+	 *            The shape, from 0 to SHAPE_COUNT - 1.
+	 * @return The smallest code of the shape.
+	 */
+	public static int shapeCode(int shape) {
+		return SHAPE_CODES[shape];
+	}
+
+	/**
+	 * Gets the number of distinct tile codes of a shape.
+	 * 
+	 * @param shape
+	 *            The shape, from 0 to SHAPE_COUNT - 1.
+	 * @return 1 if every rotation is the same, 2 if half-turns are the same,
+	 *         or 4.
+	 */
+	public static int shapeSize(int shape) {
+		return SHAPE_SIZES[shape];
+	}
+
+	/**
+	 * Gets the code of a tile after rotating it 90 degrees counterclockwise.
+	 *
+	 * @param code
+	 *            The original tile code.
+	 * @return The rotated tile code.
+	 * @see Tile#rotateLeft()
+	 */
+	public static int rotateLeft(int code) {
+		return ((code >>> 2) | (code << 6)) & 0xFF;
+	}
+
+}
@@ -1,11 +1,9 @@
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.geom.AffineTransform;
-import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
 
-import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
@@ -28,6 +26,18 @@ public class TileImageButton extends JButton implements TileUpdateListener {
 	
 	private static final int CITY_UNOWNED_RGB = new Color(130, 130, 130).getRGB();
 	
+	/**
+	 * The number of rendered images to keep in memory. A board needs at most
+	 * one image per combination of tile and owners, so this covers a whole
+	 * game with room to spare.
+	 */
+	private static final int IMAGE_CACHE_CAPACITY = 1024;
+	
+	/**
+	 * The rendered images shared by every TileImageButton.
+	 */
+	private static final TileImageCache IMAGE_CACHE = new TileImageCache(IMAGE_CACHE_CAPACITY);
+	
 	/**
 	 * The tile for this button to display.
 	 */
@@ -149,64 +159,114 @@ public class TileImageButton extends JButton implements TileUpdateListener {
 	}
 	
 	/**
-	 * Gets the image for a given tile.
+	 * Gets the rendered tile images shared by every TileImageButton.
+	 * 
+	 * @return The shared image cache.
+	 */
+	public static TileImageCache getImageCache() {
+		return IMAGE_CACHE;
+	}
+	
+	/**
+	 * Gets the image for a given tile at this button's size.
 	 * 
 	 * @param tile
 	 *            The tile to get an image for.
 	 * @return A BufferedImage representing the given tile.
 	 * @throws Exception
 	 *             if no image can be found for the given tile.
+	 * @see #imageForTile(Tile, int, int)
 	 */
 	private BufferedImage imageForTile(Tile tile) throws Exception {
-		if (tile == null) {
-			BufferedImage img = ImageIO.read(new File("images/null.png"));
-			return resizeImage(img, this.width, this.height);
+		return imageForTile(tile, this.width, this.height);
+	}
+	
+	/**
+	 * Gets the image for a given tile, drawing it only if it isn't already in
+	 * the shared image cache. The returned image is shared and must not be
+	 * changed.
+	 * 
+	 * @param tile
+	 *            The tile to get an image for, or null for an empty space.
+	 * @param width
+	 *            The width of the image, in pixels.
+	 * @param height
+	 *            The height of the image, in pixels.
+	 * @return A BufferedImage representing the given tile.
+	 * @throws Exception
+	 *             if no image can be found for the given tile.
+	 */
+	public static BufferedImage imageForTile(Tile tile, int width, int height) throws Exception {
+		long key = imageKey(tile, width, height);
+		BufferedImage cached = IMAGE_CACHE.get(key);
+		if (cached != null) {
+			return cached;
 		}
 		
-		String qs = quadrantString(tile);
-		boolean needsFlip = false;
-		int rotations = 0;
-		do {
-			boolean foundMatch = false;
-			for (int i = 0; i < 4; i++) {
-				rotations = i;
-				if (imageExists(qs)) {
-					foundMatch = true;
-					break;
-				} else {
-					qs = rotateStringRight(qs);
-				}
-			}
-			if (foundMatch) {
-				break;
-			}
-			
-			qs = flipString(qs);
-			needsFlip = true;
-			for (int i = 0; i < 4; i++) {
-				rotations = i;
-				if (imageExists(qs)) {
-					foundMatch = true;
-					break;
-				} else {
-					qs = rotateStringRight(qs);
-				}
-			}
-			if (foundMatch) {
-				break;
-			}
-			
-			throw new Exception("No image found for tile " + tile);
-		} while (false);
+		BufferedImage img = renderImage(tile, width, height);
+		IMAGE_CACHE.put(key, img);
+		return img;
+	}
+	
+	/**
+	 * Builds the key of the image for a tile in {@linkplain #IMAGE_CACHE}.
+	 * 
+	 * @param tile
+	 *            The tile to draw, or null for an empty space.
+	 * @param width
+	 *            The width of the image, in pixels.
+	 * @param height
+	 *            The height of the image, in pixels.
+	 * @return The cache key for the tile's image at the given size.
+	 */
+	private static long imageKey(Tile tile, int width, int height) {
+		if (tile == null) {
+			return TileImageCache.key(TileCode.EMPTY, Owner.NONE, Owner.NONE, width, height);
+		}
 		
-		BufferedImage img = ImageIO.read(new File(imageFilename(qs)));
-		for (int i = 0; i < rotations; i++) {
-			img = rotateImage90CounterClockwise(img);
+		// Owners of quadrant types the tile doesn't have don't change the image.
+		Owner roadOwner = Owner.NONE;
+		if (tile.hasQuadrantType(QuadrantType.ROAD)) {
+			roadOwner = tile.getQuadrantTypeOwner(QuadrantType.ROAD);
+		}
+		Owner cityOwner = Owner.NONE;
+		if (tile.hasQuadrantType(QuadrantType.CITY)) {
+			cityOwner = tile.getQuadrantTypeOwner(QuadrantType.CITY);
 		}
-		if (needsFlip) {
-			img = flipImage(img);
+		return TileImageCache.key(TileCode.of(tile), roadOwner, cityOwner, width, height);
+	}
+	
+	/**
+	 * Draws the image for a tile from the tile atlas, without using the
+	 * cache.
+	 * 
+	 * @param tile
+	 *            The tile to draw, or null for an empty space.
+	 * @param width
+	 *            The width of the image, in pixels.
+	 * @param height
+	 *            The height of the image, in pixels.
+	 * @return The image for the tile, resized to the given size.
+	 * @throws Exception
+	 *             If no image exists for the tile.
+	 */
+	private static BufferedImage renderImage(Tile tile, int width, int height) throws Exception {
+		TileAtlas atlas = TileAtlas.getDefault();
+		if (tile == null) {
+			return resizeImage(atlas.getImage("null"), width, height);
 		}
 		
+		int code = TileCode.of(tile);
+		BufferedImage source = atlas.getTileImage(code);
+		if (source == null) {
+			throw new Exception("No image found for tile " + tile);
+		}
+		
+		// The atlas image is shared, so rotate and flip it into a new image.
+		int size = source.getWidth();
+		BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		atlas.copyTilePixels(code, ((DataBufferInt) img.getRaster().getDataBuffer()).getData());
+		
 		// Recolor the image
 		if (tile.hasQuadrantType(QuadrantType.ROAD)) {
 			Owner roadOwner = tile.getQuadrantTypeOwner(QuadrantType.ROAD);
@@ -218,153 +278,11 @@ public class TileImageButton extends JButton implements TileUpdateListener {
 		}
 		
 		// Resize the image
-		img = resizeImage(img, this.width, this.height);
+		img = resizeImage(img, width, height);
 		
 		return img;
 	}
 	
-	/**
-	 * Gets a string representation of the quadrants for a tile.
-	 * 
-	 * @param tile
-	 *            The tile to process.
-	 * @return A string representation of the tile's quadrants, with one letter
-	 *         corresponding to each quadrant.
-	 */
-	private static String quadrantString(Tile tile) {
-		String result = "";
-		for (int side = 0; side < 4; side++) {
-			QuadrantType type = tile.getQuadrant(side).getType();
-			switch (type) {
-			case GRASS:
-				result += "G";
-				break;
-			case ROAD:
-				result += "R";
-				break;
-			case CITY:
-				result += "C";
-				break;
-			}
-		}
-		return result;
-	}
-	
-	/**
-	 * "Rotates" a quadrant string clockwise. In other words, it returns the
-	 * quadrant string which would result from rotating the original tile 90
-	 * degrees clockwise.
-	 * 
-	 * @param string
-	 *            The string to rotate.
-	 * @return A version of the quadrant string which has been "rotated" 90
-	 *         degrees clockwise.
-	 */
-	private static String rotateStringRight(String string) {
-		return string.charAt(string.length() - 1) + string.substring(0, string.length() - 1);
-	}
-	
-	/**
-	 * "Rotates" a quadrant string counterclockwise. In other words, it returns the
-	 * quadrant string which would result from rotating the original tile 90
-	 * degrees counterclockwise.
-	 * 
-	 * @param string
-	 *            The string to rotate.
-	 * @return A version of the quadrant string which has been "rotated" 90
-	 *         degrees counterclockwise.
-	 */
-	@SuppressWarnings("unused")
-	private static String rotateStringLeft(String string) {
-		return string.substring(1) + string.charAt(0);
-	}
-	
-	/**
-	 * "Flips" a quadrant string horizontally. In other words, it returns the
-	 * quadrant string which would result from horizontally flipping the
-	 * original tile.
-	 * 
-	 * @param string
-	 *            The string to flip.
-	 * @return A version of the quadrant string which has been "flipped"
-	 *         horizontally.
-	 */
-	private static String flipString(String string) {
-		return "" + string.charAt(0) + string.charAt(3) + string.charAt(2) + string.charAt(1);
-	}
-	
-	/**
-	 * Gets the full path for an image with a given name.
-	 * 
-	 * @param imageName
-	 *            The name of the image.
-	 * @return The full path for the given image name.
-	 */
-	private static String imageFilename(String imageName) {
-		return "images/" + imageName + ".png";
-	}
-	
-	/**
-	 * Checks whether a given image exists.
-	 * 
-	 * @param name
-	 *            The name of the image to check.
-	 * @return Whether the given image exists.
-	 */
-	private static boolean imageExists(String name) {
-		File f = new File(imageFilename(name));
-		return f.exists();
-	}
-	
-	/**
-	 * Rotates a BufferedImage 90 degrees clockwise.
-	 * 
-	 * @param img
-	 *            The image to rotate.
-	 * @returnA BufferedImage which is the given image rotated 90 degrees
-	 *          clockwise.
-	 */
-	@SuppressWarnings("unused")
-	private static BufferedImage rotateImage90Clockwise(BufferedImage img) {
-		AffineTransform tx = new AffineTransform();
-	    tx.rotate(Math.PI / 2, img.getWidth() / 2, img.getHeight() / 2);
-
-	    AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
-	    return op.filter(img, null);
-	}
-	
-	/**
-	 * Rotates a BufferedImage 90 degrees counterclockwise.
-	 * 
-	 * @param img
-	 *            The image to rotate.
-	 * @return A BufferedImage which is the given image rotated 90 degrees
-	 *         counterclockwise.
-	 */
-	private static BufferedImage rotateImage90CounterClockwise(BufferedImage img) {
-		AffineTransform tx = new AffineTransform();
-	    tx.rotate(3 * Math.PI / 2, img.getWidth() / 2, img.getHeight() / 2);
-
-	    AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
-	    return op.filter(img, null);
-	}
-	
-	/**
-	 * Flips a BufferedImage horizontally.
-	 * 
-	 * @param img
-	 *            The image to flip.
-	 * @return A BufferedImage which is the given image flipped horizontally.
-	 */
-	private static BufferedImage flipImage(BufferedImage img) {
-		AffineTransform tx = new AffineTransform();
-		tx.scale(-1, 1);
-		tx.translate(-img.getWidth(null), 0);
-		
-		AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
-	    return op.filter(img, null);
-	}
-	
 	/**
 	 * Resizes a given BufferedImage to a given width and height.
 	 * 
@@ -399,8 +317,25 @@ public class TileImageButton extends JButton implements TileUpdateListener {
 	 *            The new RGB value for the replaced pixels.
 	 */
 	public static void replaceColor(BufferedImage img, int originalRGB, int newRGB) {
-		for (int y = 0; y < img.getHeight(); y++) {
-			for (int x = 0; x < img.getWidth(); x++) {
+		WritableRaster raster = img.getRaster();
+		int width = img.getWidth();
+		int height = img.getHeight();
+		
+		// ARGB pixels are the same as getRGB's values, so change them in
+		// place instead of converting every pixel.
+		if (img.getType() == BufferedImage.TYPE_INT_ARGB && raster.getParent() == null
+				&& raster.getDataBuffer().getSize() == width * height) {
+			int[] pixels = ((DataBufferInt) raster.getDataBuffer()).getData();
+			for (int i = 0; i < pixels.length; i++) {
+				if (pixels[i] == originalRGB) {
+					pixels[i] = newRGB;
+				}
+			}
+			return;
+		}
+		
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
 				int pxColor = img.getRGB(x, y);
 				if (pxColor == originalRGB) {
 					img.setRGB(x, y, newRGB);
@@ -417,7 +352,7 @@ public class TileImageButton extends JButton implements TileUpdateListener {
 	 * @see Owner
 	 * @see QuadrantType
 	 */
-	private int getOwnerRGB(Owner owner, QuadrantType type) {
+	private static int getOwnerRGB(Owner owner, QuadrantType type) {
 		if (owner == Owner.NONE) {
 			if (type == QuadrantType.ROAD) {
 				return ROAD_UNOWNED_RGB;
@@ -0,0 +1,160 @@
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded cache of rendered tile images, shared by every
+ * {@linkplain TileImageButton}. When the cache is full, the image that was used
+ * least recently is dropped. The images in the cache are shared, so they must
+ * never be changed once they are added.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public class TileImageCache {
+
+	/**
+	 * The maximum number of images in the cache.
+	 */
+	private final int capacity;
+
+	/**
+	 * The images in the cache, in order from least to most recently used.
+	 */
+	private final LinkedHashMap<Long, BufferedImage> images;
+
+	/**
+	 * The number of lookups that found an image.
+	 */
+	private long hits;
+
+	/**
+	 * The number of lookups that did not find an image.
+	 */
+	private long misses;
+
+	/**
+	 * Constructs a new, empty TileImageCache.
+	 * 
+	 * @param capacity
+	 *            The maximum number of images in the cache.
+	 */
+	@SuppressWarnings("serial")
+	public TileImageCache(int capacity) {
+		this.capacity = capacity;
+		this.images = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+				return size() > TileImageCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Builds the cache key for a rendered tile image.
+	 * 
+	 * @param code
+	 *            The {@linkplain TileCode} of the tile, or
+	 *            {@linkplain TileCode#EMPTY} for an empty space.
+	 * @param roadOwner
+	 *            The owner of the tile's roads, or NONE if it has no roads.
+	 * @param cityOwner
+	 *            The owner of the tile's cities, or NONE if it has no cities.
+	 * @param width
+	 *            The width of the image, in pixels.
+	 * @param height
+	 *            The height of the image, in pixels.
+	 * @return A key that is different for every distinct image.
+	 */
+	public static long key(int code, Owner roadOwner, Owner cityOwner, int width, int height) {
+		long key = code & 0xFF;
+		key = (key << 2) | roadOwner.ordinal();
+		key = (key << 2) | cityOwner.ordinal();
+		key = (key << 16) | (width & 0xFFFF);
+		key = (key << 16) | (height & 0xFFFF);
+		return key;
+	}
+
+	/**
+	 * Gets an image from the cache.
+	 * 
+	 * @param key
+	 *            The key of the image.
+	 * @return The image, or null if it is not in the cache.
+	 * @see #key(int, Owner, Owner, int, int)
+	 */
+	public synchronized BufferedImage get(long key) {
+		BufferedImage image = images.get(key);
+		if (image == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return image;
+	}
+
+	/**
+	 * Adds an image to the cache, dropping the least recently used image if
+	 * the cache is full.
+	 * 
+	 * @param key
+	 *            The key of the image.
+	 * @param image
+	 *            The image. It must not be changed after this.
+	 */
+	public synchronized void put(long key, BufferedImage image) {
+		images.put(key, image);
+	}
+
+	/**
+	 * Removes every image from the cache.
+	 */
+	public synchronized void clear() {
+		images.clear();
+	}
+
+	/**
+	 * Gets the number of images in the cache.
+	 * 
+	 * @return The number of images.
+	 */
+	public synchronized int size() {
+		return images.size();
+	}
+
+	/**
+	 * Gets the maximum number of images in the cache.
+	 * 
+	 * @return The capacity of the cache.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Gets the number of lookups that found an image.
+	 * 
+	 * @return The number of cache hits.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of lookups that did not find an image.
+	 * 
+	 * @return The number of cache misses.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Resets the hit and miss counters to zero.
+	 */
+	public synchronized void resetCounters() {
+		hits = 0;
+		misses = 0;
+	}
+
+}
@@ -0,0 +1,203 @@
+import java.util.Random;
+
+/**
+ * The type of a tile: the {@linkplain QuadrantType} on each of its sides, with
+ * no owners. There are only 81 types, so each one is a single shared,
+ * immutable object, and rotating one just looks up another. Unlike a
+ * {@linkplain Tile}, a TileType can be passed around and rotated as often as
+ * needed without allocating anything, which makes it the way to describe tiles
+ * to players and search code.
+ *
+ * @author Ben Visness
+ *
+ * @see TileCode
+ */
+public final class TileType {
+
+	/**
+	 * The number of tile types.
+	 */
+	public static final int COUNT = 81;
+
+	/**
+	 * The tile type for each {@linkplain TileCode}, or null for values that
+	 * aren't tile codes.
+	 */
+	private static final TileType[] BY_CODE = new TileType[256];
+
+	/**
+	 * Every tile type, in order of code.
+	 */
+	private static final TileType[] ALL = new TileType[COUNT];
+
+	static {
+		for (int types = 0; types < COUNT; types++) {
+			int code = 0;
+			for (int side = 0, t = types; side < 4; side++, t /= 3) {
+				code |= (t % 3) << (2 * side);
+			}
+			ALL[types] = new TileType(code);
+			BY_CODE[code] = ALL[types];
+		}
+	}
+
+	/**
+	 * The code of this tile type.
+	 */
+	private final int code;
+
+	/**
+	 * Constructs a new TileType. Only used to fill the table of types.
+	 *
+	 * @param code
+	 *            The code of the tile type.
+	 */
+	private TileType(int code) {
+		this.code = code;
+	}
+
+	/**
+	 * Gets the tile type with a given code.
+	 *
+	 * @param code
+	 *            The {@linkplain TileCode} of the tile.
+	 * @return The tile type.
+	 */
+	public static TileType of(int code) {
+		TileType type = (code >= 0 && code < 256) ? BY_CODE[code] : null;
+		if (type == null) {
+			throw new IllegalArgumentException(code + ": not a tile code");
+		}
+		return type;
+	}
+
+	/**
+	 * Gets the tile type of a tile, in its current rotation.
+	 *
+	 * @param tile
+	 *            The tile.
+	 * @return The tile type.
+	 */
+	public static TileType of(Tile tile) {
+		return BY_CODE[TileCode.of(tile)];
+	}
+
+	/**
+	 * Gets a tile type by index, for looping over every type.
+	 *
+	 * @param index
+	 *            The index, from 0 to COUNT - 1.
+	 * @return The tile type.
+	 */
+	public static TileType get(int index) {
+		return ALL[index];
+	}
+
+	/**
+	 * Gets a random tile type. Every type is equally likely, the same as
+	 * {@link Tile#randomTile(Random)}.
+	 *
+	 * @param random
+	 *            The random number generator to draw from.
+	 * @return A random tile type.
+	 */
+	public static TileType random(Random random) {
+		return ALL[random.nextInt(COUNT)];
+	}
+
+	/**
+	 * Gets the code of this tile type.
+	 *
+	 * @return The {@linkplain TileCode}.
+	 */
+	public int getCode() {
+		return code;
+	}
+
+	/**
+	 * Gets the quadrant type on one side of this tile type.
+	 *
+	 * @param side
+	 *            The side of the tile. Using the constants defined in
+	 *            {@linkplain Tile} is recommended.
+	 * @return The {@linkplain QuadrantType} on the given side.
+	 */
+	public QuadrantType getType(int side) {
+		return TileCode.getType(code, side);
+	}
+
+	/**
+	 * Checks whether this tile type has a quadrant of a given type.
+	 *
+	 * @param type
+	 *            The type of quadrant to check for.
+	 * @return Whether the tile type has a quadrant of the given type.
+	 */
+	public boolean hasType(QuadrantType type) {
+		return TileCode.hasType(code, type);
+	}
+
+	/**
+	 * Gets the shape of this tile type: which set of rotations it belongs to.
+	 *
+	 * @return The shape, from 0 to TileCode.SHAPE_COUNT - 1.
+	 * @see TileCode#shape(int)
+	 */
+	public int getShape() {
+		return TileCode.shape(code);
+	}
+
+	/**
+	 * Gets this tile type rotated 90 degrees clockwise.
+	 *
+	 * @return The rotated tile type.
+	 */
+	public TileType rotateRight() {
+		return BY_CODE[TileCode.rotateRight(code)];
+	}
+
+	/**
+	 * Gets this tile type rotated 90 degrees counterclockwise.
+	 *
+	 * @return The rotated tile type.
+	 */
+	public TileType rotateLeft() {
+		return BY_CODE[TileCode.rotateLeft(code)];
+	}
+
+	/**
+	 * Gets this tile type rotated clockwise a number of times.
+	 *
+	 * @param rotations
+	 *            The number of quarter turns, from 0 to 3.
+	 * @return The rotated tile type.
+	 */
+	public TileType rotate(int rotations) {
+		int rotated = code;
+		for (int i = 0; i < rotations; i++) {
+			rotated = TileCode.rotateRight(rotated);
+		}
+		return BY_CODE[rotated];
+	}
+
+	/**
+	 * Constructs a new, unowned Tile of this type, for showing in the GUI.
+	 *
+	 * @return A new Tile object.
+	 */
+	public Tile toTile() {
+		return TileCode.toTile(code);
+	}
+
+	/**
+	 * Returns a String representation of the tile type.
+	 */
+	public String toString() {
+		return "N: " + getType(Tile.NORTH)
+				+ ". E: " + getType(Tile.EAST)
+				+ ". S: " + getType(Tile.SOUTH)
+				+ ". W: " + getType(Tile.WEST)
+				+ ".";
+	}
+
+}
@@ -0,0 +1,190 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size table of search results keyed by 64-bit position hashes, which
+ * many search threads can share without locks. Each entry is three words: a
+ * check word, the value, and the depth, bound and best move. The check word is
+ * the key XORed with the other two, so an entry that was torn by two threads
+ * writing at once doesn't match any key and is ignored.
+ * <p>
+ * Each key has a single slot, and a store always replaces what was there.
+ *
+ * @author Ben Visness
+ *
+ */
+public class TranspositionTable {
+
+	/**
+	 * The bound type of an exact value.
+	 */
+	public static final int EXACT = 0;
+
+	/**
+	 * The bound type of a value that the real value is at least.
+	 */
+	public static final int LOWER = 1;
+
+	/**
+	 * The bound type of a value that the real value is at most.
+	 */
+	public static final int UPPER = 2;
+
+	/**
+	 * The entries, three words each.
+	 */
+	private final AtomicLongArray words;
+
+	/**
+	 * The number of entries minus one. The number of entries is a power of
+	 * two.
+	 */
+	private final int mask;
+
+	/**
+	 * A search result read from the table.
+	 *
+	 * @author Ben Visness
+	 *
+	 */
+	public static class Entry {
+
+		/**
+		 * The value of the position.
+		 */
+		private double value;
+
+		/**
+		 * The depth the position was searched to.
+		 */
+		private int depth;
+
+		/**
+		 * The bound type of the value.
+		 */
+		private int bound;
+
+		/**
+		 * The best move found, or -1 if there is none.
+		 */
+		private int move;
+
+		/**
+		 * Gets the value of the position.
+		 *
+		 * @return The value.
+		 */
+		public double getValue() {
+			return value;
+		}
+
+		/**
+		 * Gets the depth the position was searched to.
+		 *
+		 * @return The depth.
+		 */
+		public int getDepth() {
+			return depth;
+		}
+
+		/**
+		 * Gets whether the value is exact, a lower bound, or an upper bound.
+		 *
+		 * @return EXACT, LOWER, or UPPER.
+		 */
+		public int getBound() {
+			return bound;
+		}
+
+		/**
+		 * Gets the best move found.
+		 *
+		 * @return The move, or -1 if there is none.
+		 */
+		public int getMove() {
+			return move;
+		}
+
+	}
+
+	/**
+	 * Constructs a new, empty TranspositionTable.
+	 *
+	 * @param bits
+	 *            The log base 2 of the number of entries.
+	 */
+	public TranspositionTable(int bits) {
+		if (bits < 1 || bits > 26) {
+			throw new IllegalArgumentException(bits + ": the table must have from 2^1 to 2^26 entries.");
+		}
+		words = new AtomicLongArray(3 << bits);
+		mask = (1 << bits) - 1;
+	}
+
+	/**
+	 * Gets the number of entries in the table.
+	 *
+	 * @return The number of entries.
+	 */
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Looks up a position.
+	 *
+	 * @param key
+	 *            The hash of the position.
+	 * @param entry
+	 *            The entry to fill in if the position is found.
+	 * @return Whether the position was found.
+	 */
+	public boolean probe(long key, Entry entry) {
+		int i = 3 * ((int) key & mask);
+		long check = words.get(i);
+		long value = words.get(i + 1);
+		long info = words.get(i + 2);
+		if ((check ^ value ^ info) != key || info == 0) {
+			return false;
+		}
+		entry.value = Double.longBitsToDouble(value);
+		entry.depth = (int) (info & 0xFFFF);
+		entry.bound = (int) ((info >>> 16) & 3);
+		entry.move = (int) (info >>> 32) - 1;
+		return true;
+	}
+
+	/**
+	 * Stores a search result, replacing whatever was in its slot.
+	 *
+	 * @param key
+	 *            The hash of the position.
+	 * @param value
+	 *            The value of the position.
+	 * @param depth
+	 *            The depth the position was searched to, from 0 to 65535.
+	 * @param bound
+	 *            EXACT, LOWER, or UPPER.
+	 * @param move
+	 *            The best move found, from 0 up, or -1 if there is none.
+	 */
+	public void store(long key, double value, int depth, int bound, int move) {
+		int i = 3 * ((int) key & mask);
+		long valueBits = Double.doubleToLongBits(value);
+		// Bit 18 is always set, so a stored entry never looks like an empty
+		// slot.
+		long info = ((long) (move + 1) << 32) | ((long) bound << 16) | depth | (1L << 18);
+		words.set(i, key ^ valueBits ^ info);
+		words.set(i + 1, valueBits);
+		words.set(i + 2, info);
+	}
+
+	/**
+	 * Empties the table.
+	 */
+	public void clear() {
+		for (int i = 0; i < words.length(); i++) {
+			words.set(i, 0);
+		}
+	}
+
+}
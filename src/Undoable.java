@@ -0,0 +1,24 @@
+/**
+ * This interface defines a part of the game state whose changes can be
+ * recorded in an {@linkplain UndoJournal} and rolled back.
+ * 
+ * @author Ben Visness
+ * 
+ */
+public interface Undoable {
+
+	/**
+	 * Puts back a value recorded in the journal.
+	 * 
+	 * @param field
+	 *            Which field was changed. The meaning is up to the
+	 *            implementation.
+	 * @param index
+	 *            The index in the field that was changed, or 0 if the field is
+	 *            not an array.
+	 * @param value
+	 *            The value the field had before it was changed.
+	 */
+	public void restore(int field, int index, int value);
+
+}